@@ -0,0 +1,311 @@
+package net.runelite.client.plugins.inferno;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.runelite.api.Prayer;
+
+/**
+ * NPC's grouped by the tick of their next attack, built once per game tick and read by the plugin
+ * and both overlays, so they all agree on which NPC's attack together.
+ */
+class AttackGroupsSnapshot
+{
+	static final AttackGroupsSnapshot EMPTY = new AttackGroupsSnapshot(new TreeMap<>(), new ArrayList<>(), new ArrayList<>());
+
+	// Color palette for different simultaneous groups
+	private static final Color[] GROUP_COLORS = {
+			new Color(255, 100, 100), // Red
+			new Color(100, 255, 100), // Green
+			new Color(100, 100, 255), // Blue
+			new Color(255, 255, 100), // Yellow
+			new Color(255, 100, 255), // Magenta
+			new Color(100, 255, 255), // Cyan
+			new Color(255, 165, 0),   // Orange
+			new Color(255, 192, 203)  // Pink
+	};
+
+	// Prayed attacks, by tick
+	private final Map<Integer, List<InfernoNPC>> attacksByTick;
+
+	// Prayed attacks within the simultaneous attack threshold of each other
+	@Getter(AccessLevel.PACKAGE)
+	private final List<InfernoNPC> simultaneousAttackers;
+
+	// Groups of 2+ attacks on the same tick that need different prayers, in tick order
+	@Getter(AccessLevel.PACKAGE)
+	private final List<Group> groups;
+
+	private final Map<InfernoNPC, Group> groupsByNpc = new HashMap<>();
+
+	@Getter(AccessLevel.PACKAGE)
+	static class Group
+	{
+		private final List<InfernoNPC> npcs;
+		private final Color color;
+		private final int priority;
+		private final int tick;
+
+		private Group(List<InfernoNPC> npcs, Color color, int priority, int tick)
+		{
+			this.npcs = npcs;
+			this.color = color;
+			this.priority = priority;
+			this.tick = tick;
+		}
+	}
+
+	private AttackGroupsSnapshot(Map<Integer, List<InfernoNPC>> attacksByTick, List<InfernoNPC> simultaneousAttackers, List<Group> groups)
+	{
+		this.attacksByTick = Collections.unmodifiableMap(attacksByTick);
+		this.simultaneousAttackers = Collections.unmodifiableList(simultaneousAttackers);
+		this.groups = Collections.unmodifiableList(groups);
+
+		for (Group group : groups)
+		{
+			for (InfernoNPC npc : group.npcs)
+			{
+				groupsByNpc.put(npc, group);
+			}
+		}
+	}
+
+	/**
+	 * @param prayed NPC's whose attacks are prayed against
+	 * @param threshold ticks between attacks that still count as simultaneous for the prayer
+	 */
+	static AttackGroupsSnapshot build(List<InfernoNPC> npcs, Predicate<InfernoNPC> prayed, int threshold)
+	{
+		final TreeMap<Integer, List<InfernoNPC>> attacksByTick = new TreeMap<>();
+		final TreeMap<Integer, List<InfernoNPC>> attackersByTick = new TreeMap<>();
+
+		for (InfernoNPC npc : npcs)
+		{
+			if (npc.getTicksTillNextAttack() <= 0)
+			{
+				continue;
+			}
+
+			if (prayed.test(npc))
+			{
+				attacksByTick.computeIfAbsent(npc.getTicksTillNextAttack(), k -> new ArrayList<>()).add(npc);
+			}
+
+			if (isAttackingNPC(npc.getType()) && !npc.getNpc().isDead())
+			{
+				attackersByTick.computeIfAbsent(npc.getTicksTillNextAttack(), k -> new ArrayList<>()).add(npc);
+			}
+		}
+
+		final List<InfernoNPC> simultaneousAttackers = new ArrayList<>();
+
+		for (Map.Entry<Integer, List<InfernoNPC>> entry : attacksByTick.entrySet())
+		{
+			final List<InfernoNPC> npcsOnTick = entry.getValue();
+
+			// Check for NPCs attacking on same tick
+			if (npcsOnTick.size() > 1)
+			{
+				simultaneousAttackers.addAll(npcsOnTick);
+			}
+
+			// Check for NPCs attacking within threshold of each other
+			for (int i = 1; i <= threshold; i++)
+			{
+				final List<InfernoNPC> nearbyTickNPCs = attacksByTick.get(entry.getKey() + i);
+				if (nearbyTickNPCs != null)
+				{
+					simultaneousAttackers.addAll(npcsOnTick);
+					simultaneousAttackers.addAll(nearbyTickNPCs);
+				}
+			}
+		}
+
+		final List<Group> groups = new ArrayList<>();
+
+		for (Map.Entry<Integer, List<InfernoNPC>> entry : attackersByTick.entrySet())
+		{
+			final List<InfernoNPC> npcsOnTick = entry.getValue();
+
+			// Only flag as simultaneous if 2+ NPCs and they need different prayers
+			if (npcsOnTick.size() >= 2 && requiresDifferentPrayers(npcsOnTick))
+			{
+				final Color color = GROUP_COLORS[groups.size() % GROUP_COLORS.length];
+				groups.add(new Group(Collections.unmodifiableList(npcsOnTick), color, calculateGroupPriority(npcsOnTick), entry.getKey()));
+			}
+		}
+
+		for (Map.Entry<Integer, List<InfernoNPC>> entry : attacksByTick.entrySet())
+		{
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+
+		return new AttackGroupsSnapshot(attacksByTick, simultaneousAttackers, groups);
+	}
+
+	/**
+	 * @return the prayed NPC's attacking on the tick, or an empty list
+	 */
+	List<InfernoNPC> getAttacks(int tick)
+	{
+		return attacksByTick.getOrDefault(tick, Collections.emptyList());
+	}
+
+	Map<Integer, List<InfernoNPC>> getAttacksByTick()
+	{
+		return attacksByTick;
+	}
+
+	/**
+	 * @return the simultaneous group of the NPC, or null if it doesn't attack together with another style
+	 */
+	Group getGroup(InfernoNPC npc)
+	{
+		return groupsByNpc.get(npc);
+	}
+
+	/**
+	 * @param upcomingAttacks the attacks of the same tick, by priority
+	 * @param combineSimultaneous whether several attacks on the next tick are prayed by their combined max hit
+	 * @return the prayer against the attacks of the next tick, or null if there are none
+	 */
+	Prayer getNextTickPrayer(AttackTimeline upcomingAttacks, boolean combineSimultaneous)
+	{
+		final List<InfernoNPC> attackingNextTick = getAttacks(1);
+
+		if (combineSimultaneous && attackingNextTick.size() > 1)
+		{
+			return getCombinedThreatPrayer(attackingNextTick);
+		}
+
+		final InfernoNPC.Attack bestAttack = upcomingAttacks.getBestAttack(1);
+		return bestAttack == null ? null : bestAttack.getPrayer();
+	}
+
+	/**
+	 * @return the prayer that blocks the most combined max hit of the attacks
+	 */
+	private static Prayer getCombinedThreatPrayer(List<InfernoNPC> attacks)
+	{
+		// Calculate total damage for each prayer type
+		int meleeDamage = 0, rangedDamage = 0, magicDamage = 0;
+
+		for (InfernoNPC npc : attacks)
+		{
+			final int damage = getMaxDamage(npc.getType());
+
+			switch (npc.getNextAttack())
+			{
+				case MELEE:
+					meleeDamage += damage;
+					break;
+				case RANGED:
+					rangedDamage += damage;
+					break;
+				case MAGIC:
+					magicDamage += damage;
+					break;
+			}
+		}
+
+		// Return prayer that blocks the most damage
+		if (meleeDamage >= rangedDamage && meleeDamage >= magicDamage)
+		{
+			return Prayer.PROTECT_FROM_MELEE;
+		}
+		else if (rangedDamage >= magicDamage)
+		{
+			return Prayer.PROTECT_FROM_MISSILES;
+		}
+		else
+		{
+			return Prayer.PROTECT_FROM_MAGIC;
+		}
+	}
+
+	/**
+	 * Approximate max hit of an NPC type.
+	 */
+	static int getMaxDamage(InfernoNPC.Type type)
+	{
+		switch (type)
+		{
+			case JAD:
+				return 97;
+			case ZUK:
+				return 120;
+			case MAGE:
+				return 45;
+			case RANGER:
+				return 40;
+			case MELEE:
+				return 35;
+			case BAT:
+				return 15;
+			case BLOB:
+				return 20;
+			default:
+				return 30;
+		}
+	}
+
+	/**
+	 * Determines if an NPC type can attack (excludes support NPCs)
+	 */
+	private static boolean isAttackingNPC(InfernoNPC.Type type)
+	{
+		return type != InfernoNPC.Type.NIBBLER
+				&& type != InfernoNPC.Type.HEALER_JAD
+				&& type != InfernoNPC.Type.HEALER_ZUK
+				&& type != InfernoNPC.Type.ZUK; // Exclude Zuk for now
+	}
+
+	/**
+	 * Checks if NPCs require different prayers (making simultaneous attacks dangerous)
+	 */
+	private static boolean requiresDifferentPrayers(List<InfernoNPC> npcs)
+	{
+		Prayer first = null;
+
+		for (InfernoNPC npc : npcs)
+		{
+			final Prayer prayer = npc.getNextAttack().getPrayer();
+
+			if (prayer == null)
+			{
+				continue;
+			}
+
+			if (first == null)
+			{
+				first = prayer;
+			}
+			else if (prayer != first)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Calculates priority for a group (higher damage = higher priority)
+	 */
+	private static int calculateGroupPriority(List<InfernoNPC> npcs)
+	{
+		int totalDamage = 0;
+		for (InfernoNPC npc : npcs)
+		{
+			totalDamage += getMaxDamage(npc.getType());
+		}
+		return totalDamage;
+	}
+}
@@ -0,0 +1,180 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Arrays;
+
+/**
+ * Priorities of the upcoming attacks of every style, indexed by the number of ticks until the attack.
+ *
+ * The slots are flat primitive arrays that are cleared and refilled every tick, so building and reading
+ * the timeline doesn't allocate. Lower priorities are more important, like {@link InfernoNPC.Type#getPriority()}.
+ */
+class AttackTimeline
+{
+	private static final InfernoNPC.Attack[] ATTACKS = InfernoNPC.Attack.values();
+	private static final int NONE = Integer.MAX_VALUE;
+
+	private int[] priorities;
+	private int maxTick = -1;
+
+	AttackTimeline()
+	{
+		priorities = new int[16 * ATTACKS.length];
+		Arrays.fill(priorities, NONE);
+	}
+
+	void clear()
+	{
+		if (maxTick >= 0)
+		{
+			Arrays.fill(priorities, 0, (maxTick + 1) * ATTACKS.length, NONE);
+			maxTick = -1;
+		}
+	}
+
+	/**
+	 * @return the highest tick an attack was put on, or -1 if the timeline is empty
+	 */
+	int getMaxTick()
+	{
+		return maxTick;
+	}
+
+	boolean has(int tick, InfernoNPC.Attack attack)
+	{
+		return getPriority(tick, attack) != NONE;
+	}
+
+	/**
+	 * @return the priority of the attack on the tick, or {@link Integer#MAX_VALUE} if there is none
+	 */
+	int getPriority(int tick, InfernoNPC.Attack attack)
+	{
+		if (tick < 0 || tick > maxTick)
+		{
+			return NONE;
+		}
+
+		return priorities[tick * ATTACKS.length + attack.ordinal()];
+	}
+
+	void put(int tick, InfernoNPC.Attack attack, int priority)
+	{
+		if (tick < 0)
+		{
+			return;
+		}
+
+		if ((tick + 1) * ATTACKS.length > priorities.length)
+		{
+			// Only happens for unusually long attack timers, the grown array is kept for later ticks
+			final int length = priorities.length;
+			priorities = Arrays.copyOf(priorities, Math.max(length * 2, (tick + 1) * ATTACKS.length));
+			Arrays.fill(priorities, length, priorities.length, NONE);
+		}
+
+		priorities[tick * ATTACKS.length + attack.ordinal()] = priority;
+		maxTick = Math.max(maxTick, tick);
+	}
+
+	/**
+	 * Puts the attack on the tick unless the tick already has the same attack with an equal or lower priority.
+	 */
+	void putIfLower(int tick, InfernoNPC.Attack attack, int priority)
+	{
+		if (priority < getPriority(tick, attack))
+		{
+			put(tick, attack, priority);
+		}
+	}
+
+	/**
+	 * Puts the next attack of a prayed NPC on the timeline. With the blob detection tick, a blob's attack
+	 * is put on the tick it detects the prayer instead, as the style that leads to a prayable attack.
+	 * Blobs are expected to be added after the other NPC's, so their detection tick can be grouped with them.
+	 */
+	void add(InfernoNPC infernoNPC, boolean indicateBlobDetectionTick)
+	{
+		final int attackTick = infernoNPC.getTicksTillNextAttack();
+
+		if (attackTick <= 0)
+		{
+			return;
+		}
+
+		if (indicateBlobDetectionTick && infernoNPC.getType() == InfernoNPC.Type.BLOB && attackTick >= 4)
+		{
+			final int detectionTick = attackTick - 3;
+
+			// If there's already a magic attack on the detection tick, group them
+			if (has(detectionTick, InfernoNPC.Attack.MAGIC))
+			{
+				putIfLower(detectionTick, InfernoNPC.Attack.MAGIC, InfernoNPC.Type.BLOB.getPriority());
+			}
+			// If there's already a ranged attack on the detection tick, group them
+			else if (has(detectionTick, InfernoNPC.Attack.RANGED))
+			{
+				putIfLower(detectionTick, InfernoNPC.Attack.RANGED, InfernoNPC.Type.BLOB.getPriority());
+			}
+			// If there's going to be a magic attack on the blob attack tick, pray range on the detect tick so magic is prayed on the attack tick
+			else if (has(attackTick, InfernoNPC.Attack.MAGIC) || has(attackTick - 4, InfernoNPC.Attack.MAGIC))
+			{
+				putIfLower(detectionTick, InfernoNPC.Attack.RANGED, InfernoNPC.Type.BLOB.getPriority());
+			}
+			// If there's going to be a ranged attack on the blob attack tick, pray magic on the detect tick so range is prayed on the attack tick
+			else if (has(attackTick, InfernoNPC.Attack.RANGED) || has(attackTick - 4, InfernoNPC.Attack.RANGED))
+			{
+				putIfLower(detectionTick, InfernoNPC.Attack.MAGIC, InfernoNPC.Type.BLOB.getPriority());
+			}
+			// If there's no magic or ranged attack on the detection tick, create a magic pray blob
+			else
+			{
+				put(detectionTick, InfernoNPC.Attack.MAGIC, InfernoNPC.Type.BLOB.getPriority());
+			}
+		}
+		else if (infernoNPC.getNextAttack() != InfernoNPC.Attack.UNKNOWN)
+		{
+			putIfLower(attackTick, infernoNPC.getNextAttack(), infernoNPC.getType().getPriority());
+		}
+	}
+
+	/**
+	 * @return the best attack of the first tick that has one, or null if the timeline is empty
+	 */
+	InfernoNPC.Attack getClosestAttack()
+	{
+		for (int tick = 0; tick <= maxTick; tick++)
+		{
+			final InfernoNPC.Attack bestAttack = getBestAttack(tick);
+
+			if (bestAttack != null)
+			{
+				return bestAttack;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return the attack with the lowest priority on the tick, the first style in declaration order on ties,
+	 * or null if the tick has no attacks
+	 */
+	InfernoNPC.Attack getBestAttack(int tick)
+	{
+		InfernoNPC.Attack bestAttack = null;
+		int bestPriority = NONE;
+
+		for (InfernoNPC.Attack attack : ATTACKS)
+		{
+			final int priority = getPriority(tick, attack);
+
+			if (priority < bestPriority)
+			{
+				bestAttack = attack;
+				bestPriority = priority;
+			}
+		}
+
+		return bestAttack;
+	}
+}
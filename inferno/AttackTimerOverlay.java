@@ -31,7 +31,7 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
@@ -62,17 +62,10 @@ public class AttackTimerOverlay extends Overlay
     @Setter(AccessLevel.PACKAGE)
     private Color attackTextColor = Color.WHITE;
 
-    // Color palette for different simultaneous groups
-    private final Color[] SIMULTANEOUS_COLORS = {
-            Color.RED,
-            Color.ORANGE,
-            Color.YELLOW,
-            Color.MAGENTA,
-            Color.CYAN,
-            new Color(255, 100, 100),
-            new Color(255, 165, 0),
-            new Color(255, 192, 203)
-    };
+    // Stamp of the tick, config and tracked NPC's the panel children were built for
+    private long panelTick = -1;
+    private int panelConfigGeneration = -1;
+    private int panelRegistryVersion = -1;
 
     @Inject
     AttackTimerOverlay(final InfernoPlugin plugin, final InfernoConfig config, final Client client)
@@ -94,6 +87,20 @@ public class AttackTimerOverlay extends Overlay
             return null;
         }
 
+        final long renderStart = System.nanoTime();
+
+        // Everything shown only changes on a game tick, so the children are kept between frames
+        if (isPanelCurrent())
+        {
+            final Dimension dimension = panelComponent.render(graphics);
+            plugin.getStageTimings().record(InfernoStageTimings.Stage.ATTACK_TIMER_OVERLAY, renderStart);
+            return dimension;
+        }
+
+        panelTick = plugin.getLastTick();
+        panelConfigGeneration = plugin.getConfigGeneration();
+        panelRegistryVersion = plugin.getNpcRegistry().getVersion();
+
         panelComponent.getChildren().clear();
 
         // Add title
@@ -108,24 +115,22 @@ public class AttackTimerOverlay extends Overlay
         // Add recommended prayer
         addRecommendedPrayer();
 
-        return panelComponent.render(graphics);
+        final Dimension dimension = panelComponent.render(graphics);
+        plugin.getStageTimings().record(InfernoStageTimings.Stage.ATTACK_TIMER_OVERLAY, renderStart);
+        return dimension;
     }
 
-    private void addAttackTimers()
+    private boolean isPanelCurrent()
     {
-        // Get all NPCs and group by type
-        Map<InfernoNPC.Type, List<InfernoNPC>> npcsByType = new HashMap<>();
-
-        for (InfernoNPC npc : plugin.getInfernoNpcs())
-        {
-            if (npc.getTicksTillNextAttack() > 0)
-            {
-                npcsByType.computeIfAbsent(npc.getType(), k -> new ArrayList<>()).add(npc);
-            }
-        }
+        return panelTick == plugin.getLastTick()
+                && panelConfigGeneration == plugin.getConfigGeneration()
+                && panelRegistryVersion == plugin.getNpcRegistry().getVersion();
+    }
 
+    private void addAttackTimers()
+    {
         // Find which specific NPCs will attack simultaneously
-        Map<InfernoNPC, SimultaneousGroup> simultaneousNPCs = findSimultaneousAttackers(npcsByType);
+        AttackGroupsSnapshot simultaneousNPCs = plugin.getAttackGroups();
 
         // Display in priority order: Jad, Mager, Ranger, Meleer, Blob, Bat
         InfernoNPC.Type[] displayOrder = {
@@ -139,10 +144,18 @@ public class AttackTimerOverlay extends Overlay
 
         for (InfernoNPC.Type type : displayOrder)
         {
-            List<InfernoNPC> npcs = npcsByType.get(type);
+            List<InfernoNPC> npcs = new ArrayList<>();
+
+            for (InfernoNPC npc : plugin.getNpcRegistry().getAll(type))
+            {
+                if (npc.getTicksTillNextAttack() > 0)
+                {
+                    npcs.add(npc);
+                }
+            }
 
             // Only show if NPCs of this type exist and have attack timers
-            if (npcs != null && !npcs.isEmpty())
+            if (!npcs.isEmpty())
             {
                 String typeName = getNPCTypeName(type);
 
@@ -157,7 +170,7 @@ public class AttackTimerOverlay extends Overlay
                     // All NPCs have the same status, display on single line
                     StringBuilder rightText = new StringBuilder();
                     Color lineColor = attackTextColor;
-                    SimultaneousGroup sharedGroup = null;
+                    AttackGroupsSnapshot.Group sharedGroup = null;
 
                     for (int i = 0; i < npcs.size(); i++)
                     {
@@ -165,7 +178,7 @@ public class AttackTimerOverlay extends Overlay
                         int tick = npc.getTicksTillNextAttack();
                         String attackSymbol = getAttackTypeSymbol(npc.getNextAttack());
 
-                        SimultaneousGroup group = simultaneousNPCs.get(npc);
+                        AttackGroupsSnapshot.Group group = simultaneousNPCs.getGroup(npc);
                         String indicator = "";
 
                         if (group != null)
@@ -184,7 +197,7 @@ public class AttackTimerOverlay extends Overlay
                     // Use group color if all NPCs are in the same simultaneous group
                     if (sharedGroup != null)
                     {
-                        lineColor = sharedGroup.color;
+                        lineColor = sharedGroup.getColor();
                     }
 
                     panelComponent.getChildren().add(LineComponent.builder()
@@ -198,14 +211,14 @@ public class AttackTimerOverlay extends Overlay
         }
     }
 
-    private boolean hasMultipleGroups(List<InfernoNPC> npcs, Map<InfernoNPC, SimultaneousGroup> simultaneousNPCs)
+    private boolean hasMultipleGroups(List<InfernoNPC> npcs, AttackGroupsSnapshot simultaneousNPCs)
     {
-        Set<SimultaneousGroup> groups = new HashSet<>();
+        Set<AttackGroupsSnapshot.Group> groups = new HashSet<>();
         boolean hasNormal = false;
 
         for (InfernoNPC npc : npcs)
         {
-            SimultaneousGroup group = simultaneousNPCs.get(npc);
+            AttackGroupsSnapshot.Group group = simultaneousNPCs.getGroup(npc);
             if (group != null)
             {
                 groups.add(group);
@@ -220,15 +233,15 @@ public class AttackTimerOverlay extends Overlay
         return (hasNormal && !groups.isEmpty()) || groups.size() > 1;
     }
 
-    private void addMultiGroupNPCLines(String typeName, List<InfernoNPC> npcs, Map<InfernoNPC, SimultaneousGroup> simultaneousNPCs)
+    private void addMultiGroupNPCLines(String typeName, List<InfernoNPC> npcs, AttackGroupsSnapshot simultaneousNPCs)
     {
         // Group NPCs by their simultaneous group
-        Map<SimultaneousGroup, List<InfernoNPC>> groupedNpcs = new HashMap<>();
+        Map<AttackGroupsSnapshot.Group, List<InfernoNPC>> groupedNpcs = new LinkedHashMap<>();
         List<InfernoNPC> normalNpcs = new ArrayList<>();
 
         for (InfernoNPC npc : npcs)
         {
-            SimultaneousGroup group = simultaneousNPCs.get(npc);
+            AttackGroupsSnapshot.Group group = simultaneousNPCs.getGroup(npc);
             if (group != null)
             {
                 groupedNpcs.computeIfAbsent(group, k -> new ArrayList<>()).add(npc);
@@ -269,9 +282,9 @@ public class AttackTimerOverlay extends Overlay
         }
 
         // Add lines for each simultaneous group
-        for (Map.Entry<SimultaneousGroup, List<InfernoNPC>> entry : groupedNpcs.entrySet())
+        for (Map.Entry<AttackGroupsSnapshot.Group, List<InfernoNPC>> entry : groupedNpcs.entrySet())
         {
-            SimultaneousGroup group = entry.getKey();
+            AttackGroupsSnapshot.Group group = entry.getKey();
             List<InfernoNPC> groupNpcs = entry.getValue();
 
             StringBuilder rightText = new StringBuilder();
@@ -295,163 +308,13 @@ public class AttackTimerOverlay extends Overlay
                     .left(leftText)
                     .leftColor(attackTextColor)
                     .right(rightText.toString())
-                    .rightColor(group.color)
+                    .rightColor(group.getColor())
                     .build());
 
             firstLine = false;
         }
     }
 
-    // ===== SIMPLE SIMULTANEOUS ATTACK DETECTION =====
-
-    /**
-     * Data class for simultaneous attack groups
-     */
-    private static class SimultaneousGroup
-    {
-        final List<InfernoNPC> npcs;
-        final Color color;
-        final int priority;
-        final int tick;
-
-        SimultaneousGroup(List<InfernoNPC> npcs, Color color, int priority, int tick)
-        {
-            this.npcs = npcs;
-            this.color = color;
-            this.priority = priority;
-            this.tick = tick;
-        }
-
-        @Override
-        public boolean equals(Object o)
-        {
-            if (this == o) return true;
-            if (!(o instanceof SimultaneousGroup)) return false;
-            SimultaneousGroup that = (SimultaneousGroup) o;
-            return tick == that.tick && priority == that.priority;
-        }
-
-        @Override
-        public int hashCode()
-        {
-            return tick * 31 + priority;
-        }
-    }
-
-    /**
-     * Finds NPCs that are attacking on the same tick (using existing tick tracking)
-     */
-    private Map<InfernoNPC, SimultaneousGroup> findSimultaneousAttackers(Map<InfernoNPC.Type, List<InfernoNPC>> npcsByType)
-    {
-        Map<InfernoNPC, SimultaneousGroup> result = new HashMap<>();
-        List<InfernoNPC> activeNPCs = new ArrayList<>();
-
-        // Collect only attack-capable NPCs
-        for (Map.Entry<InfernoNPC.Type, List<InfernoNPC>> entry : npcsByType.entrySet())
-        {
-            InfernoNPC.Type type = entry.getKey();
-            if (isAttackingNPC(type))
-            {
-                activeNPCs.addAll(entry.getValue());
-            }
-        }
-
-        // Group NPCs by their exact attack tick (using existing getTicksTillNextAttack())
-        Map<Integer, List<InfernoNPC>> npcsByTick = new HashMap<>();
-        for (InfernoNPC npc : activeNPCs)
-        {
-            int attackTick = npc.getTicksTillNextAttack();
-            npcsByTick.computeIfAbsent(attackTick, k -> new ArrayList<>()).add(npc);
-        }
-
-        // Find simultaneous groups (2+ NPCs attacking on same tick with different prayers)
-        int colorIndex = 0;
-        for (Map.Entry<Integer, List<InfernoNPC>> entry : npcsByTick.entrySet())
-        {
-            int tick = entry.getKey();
-            List<InfernoNPC> npcsOnTick = entry.getValue();
-
-            // Only flag as simultaneous if 2+ NPCs and they need different prayers
-            if (npcsOnTick.size() >= 2 && requiresDifferentPrayers(npcsOnTick))
-            {
-                Color groupColor = SIMULTANEOUS_COLORS[colorIndex % SIMULTANEOUS_COLORS.length];
-                int priority = calculateGroupPriority(npcsOnTick);
-
-                SimultaneousGroup group = new SimultaneousGroup(npcsOnTick, groupColor, priority, tick);
-
-                for (InfernoNPC npc : npcsOnTick)
-                {
-                    result.put(npc, group);
-                }
-
-                colorIndex++;
-            }
-        }
-
-        return result;
-    }
-
-    /**
-     * Determines if an NPC type can attack (excludes support NPCs)
-     */
-    private boolean isAttackingNPC(InfernoNPC.Type type)
-    {
-        return type != InfernoNPC.Type.NIBBLER
-                && type != InfernoNPC.Type.HEALER_JAD
-                && type != InfernoNPC.Type.HEALER_ZUK
-                && type != InfernoNPC.Type.ZUK; // Exclude Zuk for now
-    }
-
-    /**
-     * Checks if NPCs require different prayers (making simultaneous attacks dangerous)
-     */
-    private boolean requiresDifferentPrayers(List<InfernoNPC> npcs)
-    {
-        Set<Prayer> prayers = new HashSet<>();
-        for (InfernoNPC npc : npcs)
-        {
-            Prayer prayer = npc.getNextAttack().getPrayer();
-            if (prayer != null)
-            {
-                prayers.add(prayer);
-            }
-        }
-        // Only dangerous if they need different prayers
-        return prayers.size() > 1;
-    }
-
-    /**
-     * Calculates priority for a group (higher damage = higher priority)
-     */
-    private int calculateGroupPriority(List<InfernoNPC> npcs)
-    {
-        int totalDamage = 0;
-        for (InfernoNPC npc : npcs)
-        {
-            totalDamage += getMaxDamage(npc.getType());
-        }
-        return totalDamage;
-    }
-
-    /**
-     * Gets max damage for NPC type
-     */
-    private int getMaxDamage(InfernoNPC.Type type)
-    {
-        switch (type)
-        {
-            case JAD: return 97;
-            case MAGE: return 45;
-            case RANGER: return 40;
-            case MELEE: return 35;
-            case BAT: return 15;
-            case BLOB: return 20;
-            default: return 30;
-        }
-    }
-
-    // ===== END SIMPLE LOGIC =====
-
     private void addRecommendedPrayer()
     {
         InfernoNPC.Attack closestAttack = plugin.getClosestAttack();
@@ -527,10 +390,12 @@ public class AttackTimerOverlay extends Overlay
     public void setAttackHeaderColor(Color headerColor)
     {
         this.attackHeaderColor = headerColor;
+        panelTick = -1;
     }
 
     public void setAttackTextColor(Color textColor)
     {
         this.attackTextColor = textColor;
+        panelTick = -1;
     }
 }
\ No newline at end of file
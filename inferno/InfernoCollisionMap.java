@@ -0,0 +1,482 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Arrays;
+import net.runelite.api.CollisionData;
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.Constants;
+import net.runelite.api.WorldView;
+
+/**
+ * Copy of the scene collision flags with a line of sight table on top of it.
+ *
+ * The Inferno arena only changes when a pillar collapses, so line of sight results are kept
+ * until the collision flags differ from the copy. Results are memoized per
+ * (NPC south-west tile, NPC size, target tile) the first time they are asked for.
+ */
+class InfernoCollisionMap
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+	private static final int TILES = SIZE * SIZE;
+	private static final int WORDS = (TILES + 63) >> 6;
+	private static final int MAX_NPC_SIZE = 8;
+
+	private int[][] flags;
+	private int baseX;
+	private int baseY;
+	private int plane;
+
+	// [npc size - 1][npc tile] -> bitset of known targets followed by bitset of visible targets
+	private final long[][][] lineOfSight = new long[MAX_NPC_SIZE][][];
+
+	/**
+	 * Copies the collision flags of the world view if they changed since the last call,
+	 * dropping every cached line of sight result.
+	 *
+	 * @return true if the collision map was rebuilt
+	 */
+	boolean refresh(WorldView worldView)
+	{
+		final CollisionData[] collisionMaps = worldView.getCollisionMaps();
+
+		if (collisionMaps == null)
+		{
+			if (flags != null)
+			{
+				flags = null;
+				Arrays.fill(lineOfSight, null);
+				return true;
+			}
+
+			return false;
+		}
+
+		final int[][] currentFlags = collisionMaps[worldView.getPlane()].getFlags();
+
+		if (flags != null && baseX == worldView.getBaseX() && baseY == worldView.getBaseY()
+			&& plane == worldView.getPlane() && Arrays.deepEquals(flags, currentFlags))
+		{
+			return false;
+		}
+
+		final int[][] copy = new int[currentFlags.length][];
+		for (int x = 0; x < currentFlags.length; x++)
+		{
+			copy[x] = currentFlags[x].clone();
+		}
+
+		flags = copy;
+		baseX = worldView.getBaseX();
+		baseY = worldView.getBaseY();
+		plane = worldView.getPlane();
+		Arrays.fill(lineOfSight, null);
+		return true;
+	}
+
+	/**
+	 * Uses the collision flags of another map, which are never modified once copied.
+	 * Cached line of sight results are only dropped if the flags are not the ones already in use.
+	 *
+	 * @return true if the collision map was rebuilt
+	 */
+	boolean refresh(int[][] flags, int baseX, int baseY, int plane)
+	{
+		if (this.flags == flags && this.baseX == baseX && this.baseY == baseY && this.plane == plane)
+		{
+			return false;
+		}
+
+		this.flags = flags;
+		this.baseX = baseX;
+		this.baseY = baseY;
+		this.plane = plane;
+		Arrays.fill(lineOfSight, null);
+		return true;
+	}
+
+	int[][] getFlags()
+	{
+		return flags;
+	}
+
+	int getBaseX()
+	{
+		return baseX;
+	}
+
+	int getBaseY()
+	{
+		return baseY;
+	}
+
+	int getPlane()
+	{
+		return plane;
+	}
+
+	/**
+	 * Equivalent to {@code new WorldArea(target, 1, 1).hasLineOfSightTo(worldView, npcArea)}.
+	 *
+	 * @param npcX the world x of the NPC's south-west tile
+	 * @param npcY the world y of the NPC's south-west tile
+	 * @param npcSize the width and height of the NPC
+	 * @param targetX the world x of the target tile
+	 * @param targetY the world y of the target tile
+	 */
+	boolean hasLineOfSight(int npcX, int npcY, int npcSize, int targetX, int targetY)
+	{
+		final int sceneNpcX = npcX - baseX;
+		final int sceneNpcY = npcY - baseY;
+		final int sceneTargetX = targetX - baseX;
+		final int sceneTargetY = targetY - baseY;
+
+		if (flags == null || !inScene(sceneNpcX, sceneNpcY) || !inScene(sceneTargetX, sceneTargetY))
+		{
+			return false;
+		}
+
+		if (npcSize < 1 || npcSize > MAX_NPC_SIZE)
+		{
+			return computeLineOfSight(sceneNpcX, sceneNpcY, npcSize, sceneTargetX, sceneTargetY);
+		}
+
+		long[][] bySource = lineOfSight[npcSize - 1];
+		if (bySource == null)
+		{
+			bySource = new long[TILES][];
+			lineOfSight[npcSize - 1] = bySource;
+		}
+
+		final int source = sceneNpcX * SIZE + sceneNpcY;
+		long[] row = bySource[source];
+		if (row == null)
+		{
+			row = new long[WORDS * 2];
+			bySource[source] = row;
+		}
+
+		final int target = sceneTargetX * SIZE + sceneTargetY;
+		final int word = target >> 6;
+		final long bit = 1L << target;
+
+		if ((row[word] & bit) == 0)
+		{
+			row[word] |= bit;
+
+			if (computeLineOfSight(sceneNpcX, sceneNpcY, npcSize, sceneTargetX, sceneTargetY))
+			{
+				row[WORDS + word] |= bit;
+			}
+		}
+
+		return (row[WORDS + word] & bit) != 0;
+	}
+
+	/**
+	 * Equivalent to {@code WorldArea#canTravelInDirection} for a square area, using the copied flags.
+	 *
+	 * @param x the world x of the area's south-west tile
+	 * @param y the world y of the area's south-west tile
+	 * @param size the width and height of the area
+	 * @param dx the x direction to travel in
+	 * @param dy the y direction to travel in
+	 * @param obstacles additional tiles that can't be entered, checked with world coordinates
+	 */
+	boolean canTravelInDirection(int x, int y, int size, int dx, int dy, Obstacles obstacles)
+	{
+		dx = Integer.signum(dx);
+		dy = Integer.signum(dy);
+
+		if (dx == 0 && dy == 0)
+		{
+			return true;
+		}
+
+		if (flags == null)
+		{
+			return false;
+		}
+
+		final int startX = x - baseX + dx;
+		final int startY = y - baseY + dy;
+		final int checkX = startX + (dx > 0 ? size - 1 : 0);
+		final int checkY = startY + (dy > 0 ? size - 1 : 0);
+		final int endX = startX + size - 1;
+		final int endY = startY + size - 1;
+
+		if (!inScene(startX, startY) || !inScene(endX, endY) || !inScene(startX - dx, startY - dy))
+		{
+			return false;
+		}
+
+		int xFlags = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		int yFlags = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		int xyFlags = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		int xWallFlagsSouth = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		int xWallFlagsNorth = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		int yWallFlagsWest = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+		int yWallFlagsEast = CollisionDataFlag.BLOCK_MOVEMENT_FULL;
+
+		if (dx < 0)
+		{
+			xFlags |= CollisionDataFlag.BLOCK_MOVEMENT_EAST;
+			xWallFlagsSouth |= CollisionDataFlag.BLOCK_MOVEMENT_SOUTH | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_EAST;
+			xWallFlagsNorth |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_EAST;
+		}
+		if (dx > 0)
+		{
+			xFlags |= CollisionDataFlag.BLOCK_MOVEMENT_WEST;
+			xWallFlagsSouth |= CollisionDataFlag.BLOCK_MOVEMENT_SOUTH | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_WEST;
+			xWallFlagsNorth |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_WEST;
+		}
+		if (dy < 0)
+		{
+			yFlags |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH;
+			yWallFlagsWest |= CollisionDataFlag.BLOCK_MOVEMENT_WEST | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_WEST;
+			yWallFlagsEast |= CollisionDataFlag.BLOCK_MOVEMENT_EAST | CollisionDataFlag.BLOCK_MOVEMENT_NORTH_EAST;
+		}
+		if (dy > 0)
+		{
+			yFlags |= CollisionDataFlag.BLOCK_MOVEMENT_SOUTH;
+			yWallFlagsWest |= CollisionDataFlag.BLOCK_MOVEMENT_WEST | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_WEST;
+			yWallFlagsEast |= CollisionDataFlag.BLOCK_MOVEMENT_EAST | CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_EAST;
+		}
+		if (dx < 0 && dy < 0)
+		{
+			xyFlags |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH_EAST;
+		}
+		if (dx < 0 && dy > 0)
+		{
+			xyFlags |= CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_EAST;
+		}
+		if (dx > 0 && dy < 0)
+		{
+			xyFlags |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH_WEST;
+		}
+		if (dx > 0 && dy > 0)
+		{
+			xyFlags |= CollisionDataFlag.BLOCK_MOVEMENT_SOUTH_WEST;
+		}
+
+		if (dx != 0)
+		{
+			// Check that the area doesn't bypass a wall
+			for (int sceneY = startY; sceneY <= endY; sceneY++)
+			{
+				if ((flags[checkX][sceneY] & xFlags) != 0 || obstacles.isBlocked(checkX + baseX, sceneY + baseY))
+				{
+					return false;
+				}
+			}
+
+			// Check that the new area tiles don't contain a wall
+			for (int sceneY = startY + 1; sceneY <= endY; sceneY++)
+			{
+				if ((flags[checkX][sceneY] & xWallFlagsSouth) != 0)
+				{
+					return false;
+				}
+			}
+
+			for (int sceneY = endY - 1; sceneY >= startY; sceneY--)
+			{
+				if ((flags[checkX][sceneY] & xWallFlagsNorth) != 0)
+				{
+					return false;
+				}
+			}
+		}
+
+		if (dy != 0)
+		{
+			// Check that the area tiles don't bypass a wall
+			for (int sceneX = startX; sceneX <= endX; sceneX++)
+			{
+				if ((flags[sceneX][checkY] & yFlags) != 0 || obstacles.isBlocked(sceneX + baseX, checkY + baseY))
+				{
+					return false;
+				}
+			}
+
+			// Check that the new area tiles don't contain a wall
+			for (int sceneX = startX + 1; sceneX <= endX; sceneX++)
+			{
+				if ((flags[sceneX][checkY] & yWallFlagsWest) != 0)
+				{
+					return false;
+				}
+			}
+
+			for (int sceneX = endX - 1; sceneX >= startX; sceneX--)
+			{
+				if ((flags[sceneX][checkY] & yWallFlagsEast) != 0)
+				{
+					return false;
+				}
+			}
+		}
+
+		if (dx != 0 && dy != 0)
+		{
+			if ((flags[checkX][checkY] & xyFlags) != 0 || obstacles.isBlocked(checkX + baseX, checkY + baseY))
+			{
+				return false;
+			}
+
+			// Check that the diagonal is not blocked by a wall
+			if (size == 1)
+			{
+				if ((flags[checkX][checkY - dy] & xFlags) != 0 && !obstacles.isBlocked(checkX + baseX, startY + baseY))
+				{
+					return false;
+				}
+
+				if ((flags[checkX - dx][checkY] & yFlags) != 0 && !obstacles.isBlocked(startX + baseX, checkY + baseY))
+				{
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tiles that can't be entered on top of the collision flags, such as tiles taken by other NPC's.
+	 */
+	interface Obstacles
+	{
+		Obstacles NONE = (x, y) -> false;
+
+		boolean isBlocked(int x, int y);
+	}
+
+	private boolean computeLineOfSight(int npcX, int npcY, int npcSize, int targetX, int targetY)
+	{
+		// Same tile selection as WorldArea#hasLineOfSightTo, the 1x1 target is the source of the line
+		final int cmpNpcX = Math.max(npcX, Math.min(targetX, npcX + npcSize - 1));
+		final int cmpNpcY = Math.max(npcY, Math.min(targetY, npcY + npcSize - 1));
+
+		return hasTileLineOfSight(targetX, targetY, cmpNpcX, cmpNpcY);
+	}
+
+	/**
+	 * Port of the client's tile to tile line of sight check, run against the copied flags.
+	 */
+	private boolean hasTileLineOfSight(int x1, int y1, int x2, int y2)
+	{
+		if (x1 == x2 && y1 == y2)
+		{
+			return true;
+		}
+
+		final int dx = x2 - x1;
+		final int dy = y2 - y1;
+		final int dxAbs = Math.abs(dx);
+		final int dyAbs = Math.abs(dy);
+
+		int xFlags = CollisionDataFlag.BLOCK_LINE_OF_SIGHT_FULL;
+		int yFlags = CollisionDataFlag.BLOCK_LINE_OF_SIGHT_FULL;
+
+		if (dx < 0)
+		{
+			xFlags |= CollisionDataFlag.BLOCK_LINE_OF_SIGHT_EAST;
+		}
+		else
+		{
+			xFlags |= CollisionDataFlag.BLOCK_LINE_OF_SIGHT_WEST;
+		}
+
+		if (dy < 0)
+		{
+			yFlags |= CollisionDataFlag.BLOCK_LINE_OF_SIGHT_NORTH;
+		}
+		else
+		{
+			yFlags |= CollisionDataFlag.BLOCK_LINE_OF_SIGHT_SOUTH;
+		}
+
+		if (dxAbs > dyAbs)
+		{
+			int x = x1;
+			// The y position is represented as a bigger number to handle rounding
+			int yBig = (y1 << 16) + 0x8000;
+			final int slope = (dy << 16) / dxAbs;
+
+			if (dy < 0)
+			{
+				yBig--;
+			}
+
+			final int direction = dx < 0 ? -1 : 1;
+
+			while (x != x2)
+			{
+				x += direction;
+				final int y = yBig >>> 16;
+
+				if ((flags[x][y] & xFlags) != 0)
+				{
+					return false;
+				}
+
+				yBig += slope;
+				final int nextY = yBig >>> 16;
+
+				if (nextY != y && (flags[x][nextY] & yFlags) != 0)
+				{
+					return false;
+				}
+			}
+		}
+		else
+		{
+			int y = y1;
+			// The x position is represented as a bigger number to handle rounding
+			int xBig = (x1 << 16) + 0x8000;
+			final int slope = (dx << 16) / dyAbs;
+
+			if (dx < 0)
+			{
+				xBig--;
+			}
+
+			final int direction = dy < 0 ? -1 : 1;
+
+			while (y != y2)
+			{
+				y += direction;
+				final int x = xBig >>> 16;
+
+				if ((flags[x][y] & yFlags) != 0)
+				{
+					return false;
+				}
+
+				xBig += slope;
+				final int nextX = xBig >>> 16;
+
+				if (nextX != x && (flags[nextX][y] & xFlags) != 0)
+				{
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return the index of the world tile in scene sized arrays, or -1 if it is outside the scene
+	 */
+	int sceneIndex(int x, int y)
+	{
+		final int sceneX = x - baseX;
+		final int sceneY = y - baseY;
+		return inScene(sceneX, sceneY) ? sceneX * SIZE + sceneY : -1;
+	}
+
+	private static boolean inScene(int sceneX, int sceneY)
+	{
+		return sceneX >= 0 && sceneY >= 0 && sceneX < SIZE && sceneY < SIZE;
+	}
+}
@@ -387,6 +387,34 @@ public interface InfernoConfig extends Config
 		return false;
 	}
 
+	@ConfigItem(
+			position = 9,
+			keyName = "parallelSafespots",
+			name = "Parallel Safespot Calculation",
+			description = "Calculate the tiles every NPC can attack on multiple threads",
+			section = SafespotsSection
+	)
+	default boolean parallelSafespots()
+	{
+		return false;
+	}
+
+	@Range(
+			min = 0,
+			max = 100000
+	)
+	@ConfigItem(
+			position = 10,
+			keyName = "parallelSafespotsThreshold",
+			name = "Parallel Threshold",
+			description = "Number of tiles times NPC's below which safespots are calculated on a single thread",
+			section = SafespotsSection
+	)
+	default int parallelSafespotsThreshold()
+	{
+		return 1000;
+	}
+
 	@ConfigItem(
 			position = 0,
 			keyName = "waveDisplay",
@@ -483,6 +511,54 @@ public interface InfernoConfig extends Config
 		return false;
 	}
 
+	@ConfigItem(
+			position = 3,
+			keyName = "stageTimingOverlay",
+			name = "Stage Timing Overlay",
+			description = "Display the p50/p99 time spent in each game tick stage and overlay, and how often attack timers were right",
+			section = ExtraSection
+	)
+	default boolean stageTimingOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+			position = 4,
+			keyName = "exportStageTimings",
+			name = "Export Stage Timings",
+			description = "Write the recorded stage timings to a CSV file in the .runelite/inferno folder",
+			section = ExtraSection
+	)
+	default boolean exportStageTimings()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+			position = 5,
+			keyName = "recordReplays",
+			name = "Record Replays",
+			description = "Record the NPC's, prayers, wave messages and collision flags of every tick to a file in the .runelite/inferno/replays folder, for replaying runs offline",
+			section = ExtraSection
+	)
+	default boolean recordReplays()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+			position = 6,
+			keyName = "writeRunLog",
+			name = "Write Run Log",
+			description = "Log the NPC's, prayer and safespot of every tick to a compact file in the .runelite/inferno/runs folder",
+			section = ExtraSection
+	)
+	default boolean writeRunLog()
+	{
+		return false;
+	}
+
 	@ConfigItem(
 			position = 0,
 			keyName = "indicateNibblers",
@@ -25,11 +25,8 @@
 package net.runelite.client.plugins.inferno;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 import net.runelite.client.plugins.example.EthanApiPlugin.EthanApiPlugin;
 import net.runelite.client.plugins.lucidplugins.api.utils.MessageUtils;
@@ -47,6 +44,14 @@ import static net.runelite.client.plugins.inferno.InfernoPlugin.*;
 
 class InfernoNPC
 {
+	// Flags of the attack reach of a tile, a tile without the KNOWN flag of a check hasn't been checked this tick
+	private static final byte REACH_ATTACK_KNOWN = 1;
+	private static final byte REACH_ATTACK = 2;
+	private static final byte REACH_MOVE_KNOWN = 4;
+	private static final byte REACH_MOVE = 8;
+
+	private static final int NO_ATTACK_DUE = Integer.MAX_VALUE;
+
 	@Getter(AccessLevel.PACKAGE)
 	private NPC npc;
 	@Getter(AccessLevel.PACKAGE)
@@ -61,28 +66,79 @@ class InfernoNPC
 	private int lastAnimation;
 	@Getter(AccessLevel.PACKAGE)
 	private boolean lastCanAttack;
-	//0 = not in LOS, 1 = in LOS after move, 2 = in LOS
-	private final Map<WorldPoint, Integer> safeSpotCache;
+	private final InfernoCollisionMap collisionMap;
+	// Current animation of an NPC, replaced when replaying NPC's that aren't in a client
+	private final ToIntFunction<NPC> animations;
+
+	// Attack reach of every tile asked this tick, indexed by scene tile. Only the tiles stamped
+	// with the current generation are valid, so a new tick just increments the generation
+	private final byte[] attackReach = new byte[Constants.SCENE_SIZE * Constants.SCENE_SIZE];
+	private final int[] attackReachGenerations = new int[Constants.SCENE_SIZE * Constants.SCENE_SIZE];
+	private int attackReachGeneration = 1;
+	// Area the NPC is excluded from when checking for other NPC's in the way
+	private InfernoObstacleIndex obstacles;
+	private int obstacleExcludeX;
+	private int obstacleExcludeY;
+	private int obstacleExcludeSize;
+	private final InfernoCollisionMap.Obstacles otherNpcs = this::isBlockedByOtherNpc;
+
+	// Ticks since the attack timer ran out without a new attack cycle, or NO_ATTACK_DUE if no attack is expected
+	private int ticksSinceAttackDue = NO_ATTACK_DUE;
+	// How the attack timer compared to the attack cycle that started this tick, or null if none started
+	@Getter(AccessLevel.PACKAGE)
+	private InfernoPredictionTracker.Outcome predictionOutcome;
 
 	// Movement tracking variables
 	private WorldPoint lastNpcPosition;
 	private boolean isMovingTowardPlayer = false;
 
-	InfernoNPC(NPC npc)
+	InfernoNPC(NPC npc, InfernoCollisionMap collisionMap)
+	{
+		this(npc, collisionMap, EthanApiPlugin::getAnimation);
+	}
+
+	InfernoNPC(NPC npc, InfernoCollisionMap collisionMap, ToIntFunction<NPC> animations)
 	{
 		this.npc = npc;
+		this.collisionMap = collisionMap;
+		this.animations = animations;
 		this.type = Type.typeFromId(npc.getId());
 		this.nextAttack = type.getDefaultAttack();
 		this.ticksTillNextAttack = 0;
 		this.lastAnimation = -1;
 		this.lastCanAttack = false;
 		this.idleTicks = 0;
-		this.safeSpotCache = new HashMap<>();
 		this.lastNpcPosition = npc.getWorldLocation();
 	}
 
+	/**
+	 * Restarts the attack timer from an observed attack animation, and classifies how well the previous timer
+	 * predicted it. Timers restarted without an attack animation are only predictions themselves, so they are
+	 * set with {@link #updateNextAttack(Attack, int)} and checked against the next attack animation instead.
+	 */
+	private void startAttackCycle(Attack nextAttack, int ticksTillNextAttack)
+	{
+		if (this.ticksTillNextAttack > 0)
+		{
+			// An animation confirming the remaining time, like Jad's, is still a hit
+			predictionOutcome = this.ticksTillNextAttack == ticksTillNextAttack
+					? InfernoPredictionTracker.Outcome.HIT : InfernoPredictionTracker.Outcome.EARLY;
+		}
+		else if (ticksSinceAttackDue == 0)
+		{
+			predictionOutcome = InfernoPredictionTracker.Outcome.HIT;
+		}
+		else if (ticksSinceAttackDue <= InfernoPredictionTracker.MAX_LATE_TICKS)
+		{
+			predictionOutcome = InfernoPredictionTracker.Outcome.LATE;
+		}
+
+		updateNextAttack(nextAttack, ticksTillNextAttack);
+	}
+
 	void updateNextAttack(Attack nextAttack, int ticksTillNextAttack)
 	{
+		ticksSinceAttackDue = NO_ATTACK_DUE;
 		this.idleTicks = 0;
 		this.nextAttack = nextAttack;
 		this.ticksTillNextAttack = ticksTillNextAttack;
@@ -95,21 +151,37 @@ class InfernoNPC
 
 	boolean canAttack(Client client, WorldPoint target)
 	{
-		if (safeSpotCache.containsKey(target))
+		final int index = collisionMap.sceneIndex(target.getX(), target.getY());
+		final int reach = getAttackReach(index);
+
+		if ((reach & REACH_ATTACK_KNOWN) != 0)
 		{
-			return safeSpotCache.get(target) == 2;
+			return (reach & REACH_ATTACK) != 0;
 		}
 
-		boolean hasLos = new WorldArea(target, 1, 1).hasLineOfSightTo(client.getTopLevelWorldView(), this.getNpc().getWorldArea());
-		boolean hasRange = this.getType().getDefaultAttack() == Attack.MELEE ? this.getNpc().getWorldArea().isInMeleeDistance(target)
-				: this.getNpc().getWorldArea().distanceTo(target) <= this.getType().getRange();
+		final WorldArea area = this.getNpc().getWorldArea();
+		final boolean canAttack = canAttack(collisionMap, this.getType(), area.getX(), area.getY(), area.getWidth(),
+				target.getX(), target.getY());
 
-		if (hasLos && hasRange)
-		{
-			safeSpotCache.put(target, 2);
-		}
+		addAttackReach(index, canAttack ? REACH_ATTACK_KNOWN | REACH_ATTACK : REACH_ATTACK_KNOWN);
+
+		return canAttack;
+	}
+
+	/**
+	 * Checks if an NPC of the given type standing on the given area has line of sight and range to the target.
+	 */
+	static boolean canAttack(InfernoCollisionMap collisionMap, Type type, int x, int y, int size, int targetX, int targetY)
+	{
+		return collisionMap.hasLineOfSight(x, y, size, targetX, targetY) && hasRange(type, x, y, size, targetX, targetY);
+	}
 
-		return hasLos && hasRange;
+	private static boolean hasRange(Type type, int x, int y, int size, int targetX, int targetY)
+	{
+		final int axisX = axisDistance(x, size, targetX);
+		final int axisY = axisDistance(y, size, targetY);
+
+		return type.getDefaultAttack() == Attack.MELEE ? axisX + axisY == 1 : Math.max(axisX, axisY) <= type.getRange();
 	}
 
 	/**
@@ -219,84 +291,176 @@ class InfernoNPC
 		return new Point(Math.abs(p1.getX() - p2.getX()), Math.abs(p1.getY() - p2.getY()));
 	}
 
-	boolean canMoveToAttack(Client client, WorldPoint target, List<WorldPoint> obstacles)
+	boolean canMoveToAttack(Client client, WorldPoint target, InfernoObstacleIndex obstacles)
 	{
-		if (safeSpotCache.containsKey(target))
+		final int index = collisionMap.sceneIndex(target.getX(), target.getY());
+
+		if (index == -1)
 		{
-			return safeSpotCache.get(target) == 1 || safeSpotCache.get(target) == 2;
+			// NPC is travelling out of the scene, movement can't be predicted (but this will never show on overlay)
+			return true;
 		}
 
-		final List<WorldPoint> realObstacles = new ArrayList<>();
-		for (WorldPoint obstacle : obstacles)
+		int reach = getAttackReach(index);
+
+		if ((reach & REACH_ATTACK) != 0)
 		{
-			if (this.getNpc().getWorldArea().toWorldPointList().contains(obstacle))
-			{
-				continue;
-			}
+			return true;
+		}
+
+		if ((reach & REACH_MOVE_KNOWN) == 0)
+		{
+			final WorldArea area = this.getNpc().getWorldArea();
+
+			this.obstacles = obstacles;
+			obstacleExcludeX = area.getX();
+			obstacleExcludeY = area.getY();
+			obstacleExcludeSize = area.getWidth();
+
+			final boolean canMoveToAttack = walkToAttack(collisionMap, otherNpcs, this.getType(), area.getX(), area.getY(), area.getWidth(),
+					target.getX(), target.getY());
+			reach = addAttackReach(index, canMoveToAttack ? REACH_MOVE_KNOWN | REACH_MOVE : REACH_MOVE_KNOWN);
+		}
+
+		return (reach & REACH_MOVE) != 0;
+	}
+
+	private int getAttackReach(int index)
+	{
+		return index != -1 && attackReachGenerations[index] == attackReachGeneration ? attackReach[index] : 0;
+	}
+
+	/**
+	 * @return the reach flags of the tile after adding the given flags
+	 */
+	private int addAttackReach(int index, int flags)
+	{
+		if (index == -1)
+		{
+			return flags;
+		}
 
-			realObstacles.add(obstacle);
+		if (attackReachGenerations[index] != attackReachGeneration)
+		{
+			attackReachGenerations[index] = attackReachGeneration;
+			attackReach[index] = 0;
 		}
 
-		final WorldArea targetArea = new WorldArea(target, 1, 1);
-		WorldArea currentWorldArea = this.getNpc().getWorldArea();
+		attackReach[index] |= flags;
+		return attackReach[index];
+	}
 
-		int steps = 0;
-		while (true)
+	/**
+	 * Simulates the NPC travelling toward the target, the same way as
+	 * {@link #calculateNextTravellingPoint(Client, WorldArea, WorldArea, boolean, Predicate)} with
+	 * stopAtMeleeDistance, until it can attack the target, gets stuck or runs out of steps.
+	 */
+	static boolean walkToAttack(InfernoCollisionMap collisionMap, InfernoCollisionMap.Obstacles otherNpcs, Type type,
+								int x, int y, int size, int targetX, int targetY)
+	{
+		// Prevent infinite loop in case of pathfinding failure
+		for (int steps = 0; steps < 30; steps++)
 		{
-			// Prevent infinite loop in case of pathfinding failure
-			steps++;
-			if (steps > 30)
+			final int axisX = axisDistance(x, size, targetX);
+			final int axisY = axisDistance(y, size, targetY);
+
+			// Movement is unpredictable when the NPC stands on top of the player
+			if (axisX == 0 && axisY == 0)
+			{
+				return true;
+			}
+
+			// NPC is in melee distance of target, so no movement is done
+			if (axisX + axisY == 1)
 			{
 				return false;
 			}
 
-			final WorldArea predictedWorldArea = calculateNextTravellingPoint(client, currentWorldArea, targetArea, true, x ->
+			final int dx = targetX - x;
+			final int dy = targetY - y;
+			final int index = collisionMap.sceneIndex(x, y);
+
+			if (index == -1 ||
+					index / Constants.SCENE_SIZE + dx < 0 || index / Constants.SCENE_SIZE + dy >= Constants.SCENE_SIZE ||
+					index % Constants.SCENE_SIZE + dx < 0 || index % Constants.SCENE_SIZE + dy >= Constants.SCENE_SIZE)
 			{
-				for (WorldPoint obstacle : realObstacles)
-				{
-					if (new WorldArea(x, 1, 1).intersectsWith(new WorldArea(obstacle, 1, 1)))
-					{
-						return false;
-					}
-				}
+				// NPC is travelling out of the scene, so collision data isn't available
 				return true;
-			});
+			}
+
+			final int dxSig = Integer.signum(dx);
+			final int dySig = Integer.signum(dy);
+			int nextX = x;
+			int nextY = y;
 
-			// Will only happen when NPC is underneath player or moving out of scene (but this will never show on overlay)
-			if (predictedWorldArea == null)
+			if (axisX == 1 && axisY == 1)
 			{
-				safeSpotCache.put(target, 1);
-				return true;
+				// When it needs to stop at melee distance, it will only attempt
+				// to travel along the x axis when it is standing diagonally
+				// from the target
+				if (collisionMap.canTravelInDirection(x, y, size, dxSig, 0, otherNpcs))
+				{
+					nextX += dxSig;
+				}
+			}
+			else if (collisionMap.canTravelInDirection(x, y, size, dxSig, dySig, otherNpcs))
+			{
+				nextX += dxSig;
+				nextY += dySig;
+			}
+			else if (dx != 0 && collisionMap.canTravelInDirection(x, y, size, dxSig, 0, otherNpcs))
+			{
+				nextX += dxSig;
+			}
+			else if (dy != 0 && Math.max(Math.abs(dx), Math.abs(dy)) > 1 &&
+					collisionMap.canTravelInDirection(x, y, size, 0, dySig, otherNpcs))
+			{
+				// Note that NPCs don't attempts to travel along the y-axis
+				// if the target is <= 1 tile distance away
+				nextY += dySig;
 			}
 
-			if (predictedWorldArea == currentWorldArea)
+			// The NPC is stuck
+			if (nextX == x && nextY == y)
 			{
-				safeSpotCache.put(target, 0);
 				return false;
 			}
 
-			boolean hasLos = new WorldArea(target, 1, 1).hasLineOfSightTo(client.getTopLevelWorldView(), predictedWorldArea);
-			boolean hasRange = this.getType().getDefaultAttack() == Attack.MELEE ? predictedWorldArea.isInMeleeDistance(target)
-					: predictedWorldArea.distanceTo(target) <= this.getType().getRange();
+			x = nextX;
+			y = nextY;
 
-			if (hasLos && hasRange)
+			if (canAttack(collisionMap, type, x, y, size, targetX, targetY))
 			{
-				safeSpotCache.put(target, 1);
 				return true;
 			}
-
-			currentWorldArea = predictedWorldArea;
 		}
+
+		return false;
+	}
+
+	static int axisDistance(int start, int size, int target)
+	{
+		return Math.max(0, Math.max(start - target, target - (start + size - 1)));
+	}
+
+	private boolean isBlockedByOtherNpc(int x, int y)
+	{
+		return obstacles.isBlockedExcluding(x, y, obstacleExcludeX, obstacleExcludeY, obstacleExcludeSize);
 	}
 
 	private boolean couldAttackPrevTick(Client client, WorldPoint lastPlayerLocation)
 	{
-		return new WorldArea(lastPlayerLocation, 1, 1).hasLineOfSightTo(client.getTopLevelWorldView(), this.getNpc().getWorldArea());
+		return hasLineOfSight(this.getNpc().getWorldArea(), lastPlayerLocation);
+	}
+
+	private boolean hasLineOfSight(WorldArea npcArea, WorldPoint target)
+	{
+		return collisionMap.hasLineOfSight(npcArea.getX(), npcArea.getY(), npcArea.getWidth(), target.getX(), target.getY());
 	}
 
 	void gameTick(Client client, WorldPoint lastPlayerLocation, boolean finalPhase, int ticksSinceFinalPhase)
 	{
-		safeSpotCache.clear();
+		attackReachGeneration++;
 		this.idleTicks += 1;
 
 		// Track NPC movement toward player
@@ -317,10 +481,24 @@ class InfernoNPC
 		}
 
 		lastNpcPosition = currentNpcPosition;
+		predictionOutcome = null;
 
 		if (ticksTillNextAttack > 0)
 		{
 			this.ticksTillNextAttack--;
+
+			if (ticksTillNextAttack == 0)
+			{
+				ticksSinceAttackDue = 0;
+			}
+		}
+		else if (ticksSinceAttackDue < InfernoPredictionTracker.MAX_LATE_TICKS)
+		{
+			ticksSinceAttackDue++;
+		}
+		else
+		{
+			ticksSinceAttackDue = NO_ATTACK_DUE;
 		}
 		//Jad animation detection
 		if (this.getType() == Type.JAD && getAnimation() != -1 && getAnimation() != this.lastAnimation)
@@ -329,7 +507,7 @@ class InfernoNPC
 
 			if (currentAttack != null && currentAttack != Attack.UNKNOWN)
 			{
-				this.updateNextAttack(currentAttack, this.getType().getTicksAfterAnimation());
+				this.startAttackCycle(currentAttack, this.getType().getTicksAfterAnimation());
 			}
 		}
 
@@ -345,12 +523,12 @@ class InfernoNPC
 							//if on final phase, wait until at least 3 ticks since the final phase started to set the ticksTilNextAttack
 							if (ticksSinceFinalPhase > 3)
 							{
-								this.updateNextAttack(this.getType().getDefaultAttack(), 7);
+								this.startAttackCycle(this.getType().getDefaultAttack(), 7);
 							}
 						}
 						else
 						{
-							this.updateNextAttack(this.getType().getDefaultAttack(), 10);
+							this.startAttackCycle(this.getType().getDefaultAttack(), 10);
 						}
 					}
 					break;
@@ -375,7 +553,7 @@ class InfernoNPC
 					//This will activate another attack cycle
 					else if (getAnimation() != -1)
 					{
-						this.updateNextAttack(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
+						this.startAttackCycle(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
 					}
 					break;
 				case BAT:
@@ -383,7 +561,7 @@ class InfernoNPC
 					if (this.canAttack(client, client.getLocalPlayer().getWorldLocation())
 							&& getAnimation() != JAL_MEJRAH_STAND && getAnimation() != -1)
 					{
-						this.updateNextAttack(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
+						this.startAttackCycle(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
 					}
 					break;
 				case MELEE:
@@ -406,7 +584,7 @@ class InfernoNPC
 
 							if (nextPosition != null &&
 									nextPosition.isInMeleeDistance(playerLoc) &&
-									new WorldArea(playerLoc, 1, 1).hasLineOfSightTo(client.getTopLevelWorldView(), nextPosition))
+									hasLineOfSight(nextPosition, playerLoc))
 							{
 								// Meleer will be in range next tick - start prayer now
 								this.updateNextAttack(Attack.MELEE, 2);
@@ -422,7 +600,7 @@ class InfernoNPC
 							|| getAnimation() == JAL_XIL_RANGE_ATTACK || getAnimation() == JAL_XIL_MELEE_ATTACK
 							|| getAnimation() == JAL_ZEK_MAGE_ATTACK || getAnimation() == JAL_ZEK_MELEE_ATTACK)
 					{
-						this.updateNextAttack(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
+						this.startAttackCycle(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
 					}
 					// Burrow into ground animation for meleer
 					else if (getAnimation() == 7600)
@@ -439,7 +617,7 @@ class InfernoNPC
 					if (getAnimation() != -1)
 					{
 						// This will activate another attack cycle
-						this.updateNextAttack(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
+						this.startAttackCycle(this.getType().getDefaultAttack(), this.getType().getTicksAfterAnimation());
 					}
 					break;
 			}
@@ -470,7 +648,7 @@ class InfernoNPC
 
 	private int getAnimation()
 	{
-		return EthanApiPlugin.getAnimation(this.getNpc());
+		return animations.applyAsInt(this.getNpc());
 	}
 
 	@Getter(AccessLevel.PACKAGE)
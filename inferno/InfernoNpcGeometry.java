@@ -0,0 +1,158 @@
+package net.runelite.client.plugins.inferno;
+
+import java.awt.Polygon;
+import java.awt.Shape;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.Perspective;
+import net.runelite.api.Point;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Screen geometry of NPC's, shared by the overlays within a frame.
+ *
+ * The convex hull, text anchor and tile polygon of an NPC are computed at most once per frame and
+ * dropped on the next frame (see {@link #nextFrame()}) or when the camera moves, since the hull
+ * follows the NPC's animation. The returned shapes are shared and must not be modified.
+ */
+@Singleton
+class InfernoNpcGeometry
+{
+	private static final int HULL = 1;
+	private static final int TEXT_ANCHOR = 1 << 1;
+	private static final int TILE_POLY = 1 << 2;
+
+	// NPC's are dropped at a frame boundary once more than this many were seen
+	private static final int MAX_NPCS = 64;
+
+	private final Client client;
+	private final InfernoTileProjection tileProjection;
+
+	private final Map<NPC, Geometry> geometries = new IdentityHashMap<>();
+	private int frame;
+	private int projectionStamp;
+
+	private static class Geometry
+	{
+		private int frame;
+		private int computed;
+		private Shape hull;
+		private Point textAnchor;
+		private Polygon tilePoly;
+	}
+
+	@Inject
+	InfernoNpcGeometry(Client client, InfernoTileProjection tileProjection)
+	{
+		this.client = client;
+		this.tileProjection = tileProjection;
+	}
+
+	/**
+	 * Drops the geometry of the previous frame.
+	 */
+	void nextFrame()
+	{
+		frame++;
+
+		if (geometries.size() > MAX_NPCS)
+		{
+			geometries.clear();
+		}
+	}
+
+	void clear()
+	{
+		geometries.clear();
+		frame++;
+	}
+
+	/**
+	 * @return the convex hull of the NPC's model, or null if it isn't on screen
+	 */
+	Shape getConvexHull(NPC npc)
+	{
+		final Geometry geometry = get(npc);
+
+		if ((geometry.computed & HULL) == 0)
+		{
+			geometry.hull = npc.getConvexHull();
+			geometry.computed |= HULL;
+		}
+
+		return geometry.hull;
+	}
+
+	/**
+	 * @return the canvas point at the ground level of the NPC's location that text is centered on, same as
+	 * {@link net.runelite.api.Actor#getCanvasTextLocation} with a zOffset of 0 before centering, or null if it
+	 * isn't on screen
+	 */
+	Point getTextAnchor(NPC npc)
+	{
+		final Geometry geometry = get(npc);
+
+		if ((geometry.computed & TEXT_ANCHOR) == 0)
+		{
+			final LocalPoint localPoint = npc.getLocalLocation();
+			geometry.textAnchor = localPoint == null ? null
+					: Perspective.localToCanvas(client, localPoint, client.getTopLevelWorldView().getPlane(), 0);
+			geometry.computed |= TEXT_ANCHOR;
+		}
+
+		return geometry.textAnchor;
+	}
+
+	/**
+	 * @return the canvas polygon of the NPC's south-west tile, or null if it isn't on screen
+	 */
+	Polygon getTilePoly(NPC npc)
+	{
+		final Geometry geometry = get(npc);
+
+		if ((geometry.computed & TILE_POLY) == 0)
+		{
+			final WorldPoint worldPoint = npc.getWorldLocation();
+			geometry.tilePoly = tileProjection.getCanvasTilePoly(worldPoint.getX(), worldPoint.getY());
+			geometry.computed |= TILE_POLY;
+		}
+
+		return geometry.tilePoly;
+	}
+
+	private Geometry get(NPC npc)
+	{
+		final int stamp = tileProjection.getStamp();
+
+		if (stamp != projectionStamp)
+		{
+			// Camera moved since the last frame
+			projectionStamp = stamp;
+			frame++;
+		}
+
+		Geometry geometry = geometries.get(npc);
+
+		if (geometry == null)
+		{
+			geometry = new Geometry();
+			geometries.put(npc, geometry);
+		}
+
+		if (geometry.frame != frame)
+		{
+			geometry.frame = frame;
+			geometry.computed = 0;
+			geometry.hull = null;
+			geometry.textAnchor = null;
+			geometry.tilePoly = null;
+		}
+
+		return geometry;
+	}
+}
@@ -0,0 +1,213 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.runelite.api.NPC;
+
+/**
+ * The tracked Inferno NPC's, keyed by NPC identity and kept in a linked order where new NPC's go first,
+ * except for blobs which go last. Blobs need to be last because the prayer for their detection tick is
+ * based on the upcoming attacks of the other NPC's.
+ *
+ * Adding and removing an NPC is constant time. The list of all NPC's and of every type are rebuilt on
+ * the first read after a change, so the many reads between spawns and despawns don't scan or allocate.
+ */
+class InfernoNpcRegistry
+{
+	private static final InfernoNPC.Type[] TYPES = InfernoNPC.Type.values();
+
+	private final Map<NPC, Node> nodes = new IdentityHashMap<>();
+	private Node head;
+	private Node tail;
+
+	// Incremented whenever an NPC is added or removed
+	@Getter(AccessLevel.PACKAGE)
+	private int version;
+
+	private boolean changed;
+	private List<InfernoNPC> all = Collections.emptyList();
+	private final List<List<InfernoNPC>> byType = new ArrayList<>(TYPES.length);
+
+	private static class Node
+	{
+		private final InfernoNPC infernoNPC;
+		private Node previous;
+		private Node next;
+
+		private Node(InfernoNPC infernoNPC)
+		{
+			this.infernoNPC = infernoNPC;
+		}
+	}
+
+	InfernoNpcRegistry()
+	{
+		for (int i = 0; i < TYPES.length; i++)
+		{
+			byType.add(Collections.emptyList());
+		}
+	}
+
+	void add(InfernoNPC infernoNPC)
+	{
+		final Node node = new Node(infernoNPC);
+		final Node replaced = nodes.put(infernoNPC.getNpc(), node);
+
+		if (replaced != null)
+		{
+			unlink(replaced);
+		}
+
+		if (infernoNPC.getType() == InfernoNPC.Type.BLOB)
+		{
+			node.previous = tail;
+			if (tail != null)
+			{
+				tail.next = node;
+			}
+			tail = node;
+			if (head == null)
+			{
+				head = node;
+			}
+		}
+		else
+		{
+			node.next = head;
+			if (head != null)
+			{
+				head.previous = node;
+			}
+			head = node;
+			if (tail == null)
+			{
+				tail = node;
+			}
+		}
+
+		changed = true;
+		version++;
+	}
+
+	void remove(NPC npc)
+	{
+		final Node node = nodes.remove(npc);
+
+		if (node != null)
+		{
+			unlink(node);
+			changed = true;
+			version++;
+		}
+	}
+
+	void clear()
+	{
+		nodes.clear();
+		head = null;
+		tail = null;
+		changed = true;
+		version++;
+	}
+
+	/**
+	 * @return the tracked NPC, or null
+	 */
+	InfernoNPC get(NPC npc)
+	{
+		final Node node = nodes.get(npc);
+		return node == null ? null : node.infernoNPC;
+	}
+
+	int size()
+	{
+		return nodes.size();
+	}
+
+	/**
+	 * @return every NPC in order, as an unmodifiable list that isn't affected by later changes
+	 */
+	List<InfernoNPC> getAll()
+	{
+		rebuild();
+		return all;
+	}
+
+	/**
+	 * @return the NPC's of the type in order, as an unmodifiable list that isn't affected by later changes
+	 */
+	List<InfernoNPC> getAll(InfernoNPC.Type type)
+	{
+		rebuild();
+		return byType.get(type.ordinal());
+	}
+
+	/**
+	 * @return the first NPC of the type, or null if there is none
+	 */
+	InfernoNPC getFirst(InfernoNPC.Type type)
+	{
+		final List<InfernoNPC> npcs = getAll(type);
+		return npcs.isEmpty() ? null : npcs.get(0);
+	}
+
+	private void unlink(Node node)
+	{
+		if (node.previous != null)
+		{
+			node.previous.next = node.next;
+		}
+		else if (head == node)
+		{
+			head = node.next;
+		}
+
+		if (node.next != null)
+		{
+			node.next.previous = node.previous;
+		}
+		else if (tail == node)
+		{
+			tail = node.previous;
+		}
+
+		node.previous = null;
+		node.next = null;
+	}
+
+	private void rebuild()
+	{
+		if (!changed)
+		{
+			return;
+		}
+
+		final List<InfernoNPC> npcs = new ArrayList<>(nodes.size());
+		final List<List<InfernoNPC>> types = new ArrayList<>(TYPES.length);
+
+		for (int i = 0; i < TYPES.length; i++)
+		{
+			types.add(new ArrayList<>());
+		}
+
+		for (Node node = head; node != null; node = node.next)
+		{
+			npcs.add(node.infernoNPC);
+			types.get(node.infernoNPC.getType().ordinal()).add(node.infernoNPC);
+		}
+
+		all = Collections.unmodifiableList(npcs);
+
+		for (int i = 0; i < TYPES.length; i++)
+		{
+			byType.set(i, types.get(i).isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(types.get(i)));
+		}
+
+		changed = false;
+	}
+}
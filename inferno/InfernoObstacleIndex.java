@@ -0,0 +1,266 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.runelite.api.Constants;
+import net.runelite.api.NPC;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.WorldArea;
+
+/**
+ * Occupancy counts of the tiles taken by NPC's, indexed by scene tile.
+ *
+ * Every NPC's last known area is kept so spawns, despawns and movement only touch the
+ * tiles that changed, and membership checks are a single array lookup.
+ *
+ * Spawns and despawns are queued and only applied by {@link #update(WorldView)} together with the
+ * movement, so between updates the index holds the NPC's of the last update, like the obstacle
+ * list it replaces that was rebuilt once per tick after the safespot calculation.
+ */
+class InfernoObstacleIndex
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+
+	private final byte[] occupancy = new byte[SIZE * SIZE];
+	private final Map<NPC, Footprint> footprints = new HashMap<>();
+	private final List<NPC> spawned = new ArrayList<>();
+	private final List<NPC> despawned = new ArrayList<>();
+
+	private int baseX;
+	private int baseY;
+
+	// Incremented whenever an occupancy count changes
+	@Getter(AccessLevel.PACKAGE)
+	private int version;
+
+	@Getter(AccessLevel.PACKAGE)
+	static class Footprint
+	{
+		private int x;
+		private int y;
+		private int size;
+	}
+
+	/**
+	 * Queues an NPC that spawned, it is added on the next update.
+	 */
+	void spawned(NPC npc)
+	{
+		spawned.add(npc);
+	}
+
+	/**
+	 * Queues an NPC that despawned, it is removed on the next update.
+	 */
+	void despawned(NPC npc)
+	{
+		despawned.add(npc);
+	}
+
+	private void add(NPC npc)
+	{
+		final WorldArea area = npc.getWorldArea();
+
+		if (area == null || footprints.containsKey(npc))
+		{
+			return;
+		}
+
+		final Footprint footprint = new Footprint();
+		footprint.x = area.getX();
+		footprint.y = area.getY();
+		footprint.size = area.getWidth();
+		footprints.put(npc, footprint);
+		mark(footprint, 1);
+	}
+
+	private void remove(NPC npc)
+	{
+		final Footprint footprint = footprints.remove(npc);
+
+		if (footprint != null)
+		{
+			mark(footprint, -1);
+		}
+	}
+
+	void clear()
+	{
+		footprints.clear();
+		spawned.clear();
+		despawned.clear();
+		Arrays.fill(occupancy, (byte) 0);
+		version++;
+	}
+
+	/**
+	 * Clears the index for a scene at the given base, for areas added by {@link #addArea(int, int, int)}.
+	 */
+	void reset(int baseX, int baseY)
+	{
+		clear();
+		this.baseX = baseX;
+		this.baseY = baseY;
+	}
+
+	/**
+	 * Marks an area that isn't tracked by NPC, such as an NPC of a replayed tick.
+	 */
+	void addArea(int x, int y, int size)
+	{
+		final Footprint footprint = new Footprint();
+		footprint.x = x;
+		footprint.y = y;
+		footprint.size = size;
+		mark(footprint, 1);
+	}
+
+	/**
+	 * Applies the queued spawns and despawns, and the movement of every NPC in the world view since the last update.
+	 */
+	void update(WorldView worldView)
+	{
+		update(worldView.npcs(), worldView.getBaseX(), worldView.getBaseY());
+	}
+
+	/**
+	 * Same as {@link #update(WorldView)} for the NPC's of a scene at the given base.
+	 */
+	void update(Iterable<? extends NPC> npcs, int baseX, int baseY)
+	{
+		for (NPC npc : spawned)
+		{
+			add(npc);
+		}
+
+		for (NPC npc : despawned)
+		{
+			remove(npc);
+		}
+
+		spawned.clear();
+		despawned.clear();
+
+		if (this.baseX != baseX || this.baseY != baseY)
+		{
+			// Scene moved, every footprint has to be placed again
+			this.baseX = baseX;
+			this.baseY = baseY;
+			Arrays.fill(occupancy, (byte) 0);
+			version++;
+
+			for (Footprint footprint : footprints.values())
+			{
+				mark(footprint, 1);
+			}
+		}
+
+		for (NPC npc : npcs)
+		{
+			final Footprint footprint = footprints.get(npc);
+
+			if (footprint == null)
+			{
+				add(npc);
+				continue;
+			}
+
+			final WorldArea area = npc.getWorldArea();
+
+			if (area == null || (area.getX() == footprint.x && area.getY() == footprint.y && area.getWidth() == footprint.size))
+			{
+				continue;
+			}
+
+			mark(footprint, -1);
+			footprint.x = area.getX();
+			footprint.y = area.getY();
+			footprint.size = area.getWidth();
+			mark(footprint, 1);
+		}
+	}
+
+	boolean isBlocked(int x, int y)
+	{
+		final int index = index(x, y);
+		return index != -1 && occupancy[index] > 0;
+	}
+
+	/**
+	 * Checks if a tile is taken by any NPC other than the one standing on the given area.
+	 */
+	boolean isBlockedExcluding(int x, int y, int excludeX, int excludeY, int excludeSize)
+	{
+		final int index = index(x, y);
+
+		if (index == -1)
+		{
+			return false;
+		}
+
+		final boolean excluded = x >= excludeX && x < excludeX + excludeSize && y >= excludeY && y < excludeY + excludeSize;
+		return occupancy[index] > (excluded ? 1 : 0);
+	}
+
+	/**
+	 * Copies the occupancy counts into another index, without the NPC's behind them, for use off the client thread.
+	 */
+	void copyTo(InfernoObstacleIndex copy)
+	{
+		System.arraycopy(occupancy, 0, copy.occupancy, 0, occupancy.length);
+		copy.footprints.clear();
+		copy.baseX = baseX;
+		copy.baseY = baseY;
+		copy.version = version;
+	}
+
+	Collection<Footprint> getFootprints()
+	{
+		return footprints.values();
+	}
+
+	/**
+	 * @return the area the NPC was last seen on, or null if it isn't tracked
+	 */
+	Footprint getFootprint(NPC npc)
+	{
+		return footprints.get(npc);
+	}
+
+	private void mark(Footprint footprint, int delta)
+	{
+		version++;
+
+		for (int x = footprint.x; x < footprint.x + footprint.size; x++)
+		{
+			for (int y = footprint.y; y < footprint.y + footprint.size; y++)
+			{
+				final int index = index(x, y);
+
+				if (index != -1)
+				{
+					occupancy[index] += delta;
+				}
+			}
+		}
+	}
+
+	private int index(int x, int y)
+	{
+		final int sceneX = x - baseX;
+		final int sceneY = y - baseY;
+
+		if (sceneX < 0 || sceneY < 0 || sceneX >= SIZE || sceneY >= SIZE)
+		{
+			return -1;
+		}
+
+		return sceneX * SIZE + sceneY;
+	}
+}
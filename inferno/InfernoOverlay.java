@@ -2,7 +2,6 @@ package net.runelite.client.plugins.inferno;
 
 import net.runelite.client.plugins.example.PacketUtils.WidgetInfoExtended;
 import com.google.common.base.Strings;
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
@@ -11,13 +10,9 @@ import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.Stroke;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
 import javax.inject.Inject;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
 
 import net.runelite.client.plugins.inferno.displaymodes.InfernoPrayerDisplayMode;
 import net.runelite.client.plugins.inferno.displaymodes.InfernoSafespotDisplayMode;
@@ -26,8 +21,6 @@ import net.runelite.api.NPC;
 import net.runelite.api.Perspective;
 import net.runelite.api.Point;
 import net.runelite.api.Prayer;
-import net.runelite.api.coords.LocalPoint;
-import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.widgets.Widget;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
@@ -40,37 +33,52 @@ public class InfernoOverlay extends Overlay
 	private static final int TICK_PIXEL_SIZE = 60;
 	private static final int BOX_WIDTH = 10;
 	private static final int BOX_HEIGHT = 5;
+	private static final Color INDICATOR_BACKGROUND_COLOR = new Color(0, 0, 0, 180);
+	private static final Color SAFESPOT_MAGENTA = new Color(255, 0, 255);
+	private static final Color SAFESPOT_CYAN = new Color(0, 255, 255);
 
 	private final InfernoPlugin plugin;
 	private final InfernoConfig config;
 	private final Client client;
-
-	// Color palette for different simultaneous groups
-	private final Color[] SIMULTANEOUS_COLORS = {
-			new Color(255, 100, 100), // Red
-			new Color(100, 255, 100), // Green
-			new Color(100, 100, 255), // Blue
-			new Color(255, 255, 100), // Yellow
-			new Color(255, 100, 255), // Magenta
-			new Color(100, 255, 255), // Cyan
-			new Color(255, 165, 0),   // Orange
-			new Color(255, 192, 203)  // Pink
-	};
+	private final InfernoTileProjection tileProjection;
+	private final InfernoTickAtlas tickAtlas;
+	private final InfernoNpcGeometry npcGeometry;
+	private final InfernoRenderResources renderResources;
+
+	// AREA safespot shapes, rebuilt when the safespot grid or the camera changes
+	private final Path2D[] areaFills = new Path2D[7];
+	private final Path2D[] areaOutlines = new Path2D[7];
+	private InfernoSafespotGrid areaGrid;
+	private int areaGridVersion;
+	private int areaProjectionStamp;
 
 	@Inject
-	private InfernoOverlay(final Client client, final InfernoPlugin plugin, final InfernoConfig config)
+	private InfernoOverlay(final Client client, final InfernoPlugin plugin, final InfernoConfig config,
+						   final InfernoTileProjection tileProjection, final InfernoTickAtlas tickAtlas,
+						   final InfernoNpcGeometry npcGeometry, final InfernoRenderResources renderResources)
 	{
 		this.client = client;
+		this.tileProjection = tileProjection;
+		this.tickAtlas = tickAtlas;
+		this.npcGeometry = npcGeometry;
+		this.renderResources = renderResources;
 		this.plugin = plugin;
 		this.config = config;
 		setPosition(OverlayPosition.DYNAMIC);
 		setLayer(OverlayLayer.ABOVE_WIDGETS);
 		setPriority(OverlayPriority.HIGHEST);
+
+		for (int safeSpotId = 0; safeSpotId < areaFills.length; safeSpotId++)
+		{
+			areaFills[safeSpotId] = new Path2D.Float();
+			areaOutlines[safeSpotId] = new Path2D.Float();
+		}
 	}
 
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
+		final long renderStart = System.nanoTime();
 		final Widget meleePrayerWidget = client.getWidget(WidgetInfoExtended.PRAYER_PROTECT_FROM_MELEE.getPackedId());
 		final Widget rangePrayerWidget = client.getWidget(WidgetInfoExtended.PRAYER_PROTECT_FROM_MISSILES.getPackedId());
 		final Widget magicPrayerWidget = client.getWidget(WidgetInfoExtended.PRAYER_PROTECT_FROM_MAGIC.getPackedId());
@@ -94,67 +102,47 @@ public class InfernoOverlay extends Overlay
 			renderBlobDeathPoly(graphics);
 		}
 
-		for (InfernoNPC infernoNPC : plugin.getInfernoNpcs())
+		final InfernoRenderPlan renderPlan = plugin.getRenderPlan();
+
+		for (int entry = 0; entry < renderPlan.size(); entry++)
 		{
-			if (infernoNPC.getNpc().getConvexHull() != null)
+			final InfernoNPC infernoNPC = renderPlan.getNpc(entry);
+			final int flags = renderPlan.getFlags(entry);
+
+			if ((flags & InfernoRenderPlan.HIGHLIGHTS) != 0)
 			{
-				if (config.indicateNonSafespotted() && plugin.isNormalSafespots(infernoNPC)
-						&& infernoNPC.canAttack(client, client.getLocalPlayer().getWorldLocation()))
-				{
-					OverlayUtil.renderPolygon(graphics, infernoNPC.getNpc().getConvexHull(), Color.RED);
-				}
-				if (config.indicateTemporarySafespotted() && plugin.isNormalSafespots(infernoNPC)
-						&& infernoNPC.canMoveToAttack(client, client.getLocalPlayer().getWorldLocation(), plugin.getObstacles()))
-				{
-					OverlayUtil.renderPolygon(graphics, infernoNPC.getNpc().getConvexHull(), Color.YELLOW);
-				}
-				if (config.indicateSafespotted() && plugin.isNormalSafespots(infernoNPC))
-				{
-					OverlayUtil.renderPolygon(graphics, infernoNPC.getNpc().getConvexHull(), Color.GREEN);
-				}
-				if (config.indicateNibblers() && infernoNPC.getType() == InfernoNPC.Type.NIBBLER
-						&& (!config.indicateCentralNibbler() || plugin.getCentralNibbler() != infernoNPC))
-				{
-					OverlayUtil.renderPolygon(graphics, infernoNPC.getNpc().getConvexHull(), Color.CYAN);
-				}
-				if (config.indicateCentralNibbler() && infernoNPC.getType() == InfernoNPC.Type.NIBBLER
-						&& plugin.getCentralNibbler() == infernoNPC)
-				{
-					OverlayUtil.renderPolygon(graphics, infernoNPC.getNpc().getConvexHull(), Color.BLUE);
-				}
-				if (config.indicateActiveHealerJad() && infernoNPC.getType() == InfernoNPC.Type.HEALER_JAD
-						&& infernoNPC.getNpc().getInteracting() != client.getLocalPlayer())
-				{
-					OverlayUtil.renderPolygon(graphics, infernoNPC.getNpc().getConvexHull(), Color.CYAN);
-				}
-				if (config.indicateActiveHealerZuk() && infernoNPC.getType() == InfernoNPC.Type.HEALER_ZUK
-						&& infernoNPC.getNpc().getInteracting() != client.getLocalPlayer())
+				final Shape convexHull = npcGeometry.getConvexHull(infernoNPC.getNpc());
+
+				if (convexHull != null)
 				{
-					OverlayUtil.renderPolygon(graphics, infernoNPC.getNpc().getConvexHull(), Color.CYAN);
+					for (int highlight = 0; highlight < InfernoRenderPlan.HIGHLIGHT_COUNT; highlight++)
+					{
+						if ((flags & (1 << highlight)) != 0)
+						{
+							OverlayUtil.renderPolygon(graphics, convexHull, InfernoRenderPlan.getHighlightColor(highlight));
+						}
+					}
 				}
 			}
 
-			if (plugin.isIndicateNpcPosition(infernoNPC))
+			if ((flags & InfernoRenderPlan.INDICATE_POSITION) != 0)
 			{
 				renderNpcLocation(graphics, infernoNPC);
 			}
 
-			if (plugin.isTicksOnNpc(infernoNPC) && infernoNPC.getTicksTillNextAttack() > 0)
+			if ((flags & InfernoRenderPlan.TICKS_ON_NPC) != 0)
 			{
-				renderTicksOnNpc(graphics, infernoNPC, infernoNPC.getNpc());
+				renderTicksOnNpc(graphics, renderPlan, entry, infernoNPC.getNpc());
 			}
 
-			if (config.ticksOnNpcZukShield() && infernoNPC.getType() == InfernoNPC.Type.ZUK && plugin.getZukShield() != null && infernoNPC.getTicksTillNextAttack() > 0)
+			if ((flags & InfernoRenderPlan.TICKS_ON_ZUK_SHIELD) != 0 && plugin.getZukShield() != null)
 			{
-				renderTicksOnNpc(graphics, infernoNPC, plugin.getZukShield());
+				renderTicksOnNpc(graphics, renderPlan, entry, plugin.getZukShield());
 			}
 
-			if (config.ticksOnNpcMeleerDig()
-					&& infernoNPC.getType() == InfernoNPC.Type.MELEE
-					&& infernoNPC.getIdleTicks() >= config.digTimerThreshold()
-					&& infernoNPC.getTicksTillNextAttack() == 0) // don't clobber the attack timer
+			if ((flags & InfernoRenderPlan.DIG_TIMER) != 0)
 			{
-				renderDigTimer(graphics, infernoNPC);
+				renderDigTimer(graphics, renderPlan, entry);
 			}
 		}
 
@@ -178,173 +166,47 @@ public class InfernoOverlay extends Overlay
 			}
 		}
 
+		plugin.getStageTimings().record(InfernoStageTimings.Stage.INFERNO_OVERLAY, renderStart);
 		return null;
 	}
 
-	// ===== SIMPLE SIMULTANEOUS ATTACK DETECTION =====
-
-	/**
-	 * Data class for simultaneous attack groups
-	 */
-	private static class SimultaneousGroup
-	{
-		final List<InfernoNPC> npcs;
-		final Color color;
-		final int priority;
-		final int tick;
-
-		SimultaneousGroup(List<InfernoNPC> npcs, Color color, int priority, int tick)
-		{
-			this.npcs = npcs;
-			this.color = color;
-			this.priority = priority;
-			this.tick = tick;
-		}
-	}
-
-	/**
-	 * Finds NPCs that are attacking on the same tick (using existing tick tracking)
-	 */
-	private Map<InfernoNPC, SimultaneousGroup> findSimultaneousAttackers()
+	private void renderObstacles(Graphics2D graphics)
 	{
-		Map<InfernoNPC, SimultaneousGroup> result = new HashMap<>();
-		List<InfernoNPC> activeNPCs = new ArrayList<>();
-
-		// Collect active NPCs that can attack
-		for (InfernoNPC npc : plugin.getInfernoNpcs())
+		for (InfernoObstacleIndex.Footprint footprint : plugin.getObstacles().getFootprints())
 		{
-			if (npc.getTicksTillNextAttack() > 0
-					&& !npc.getNpc().isDead()
-					&& isAttackingNPC(npc.getType()))
+			for (int x = footprint.getX(); x < footprint.getX() + footprint.getSize(); x++)
 			{
-				activeNPCs.add(npc);
-			}
-		}
-
-		// Group NPCs by their exact attack tick (using existing getTicksTillNextAttack())
-		Map<Integer, List<InfernoNPC>> npcsByTick = new HashMap<>();
-		for (InfernoNPC npc : activeNPCs)
-		{
-			int attackTick = npc.getTicksTillNextAttack();
-			npcsByTick.computeIfAbsent(attackTick, k -> new ArrayList<>()).add(npc);
-		}
-
-		// Find simultaneous groups (2+ NPCs attacking on same tick with different prayers)
-		int colorIndex = 0;
-		for (Map.Entry<Integer, List<InfernoNPC>> entry : npcsByTick.entrySet())
-		{
-			int tick = entry.getKey();
-			List<InfernoNPC> npcsOnTick = entry.getValue();
-
-			// Only flag as simultaneous if 2+ NPCs and they need different prayers
-			if (npcsOnTick.size() >= 2 && requiresDifferentPrayers(npcsOnTick))
-			{
-				Color groupColor = SIMULTANEOUS_COLORS[colorIndex % SIMULTANEOUS_COLORS.length];
-				int priority = calculateGroupPriority(npcsOnTick);
-
-				SimultaneousGroup group = new SimultaneousGroup(npcsOnTick, groupColor, priority, tick);
-
-				for (InfernoNPC npc : npcsOnTick)
+				for (int y = footprint.getY(); y < footprint.getY() + footprint.getSize(); y++)
 				{
-					result.put(npc, group);
-				}
-
-				colorIndex++;
-			}
-		}
+					final Polygon tilePoly = tileProjection.getCanvasTilePoly(x, y);
 
-		return result;
-	}
-
-	/**
-	 * Determines if an NPC type can attack (excludes support NPCs)
-	 */
-	private boolean isAttackingNPC(InfernoNPC.Type type)
-	{
-		return type != InfernoNPC.Type.NIBBLER
-				&& type != InfernoNPC.Type.HEALER_JAD
-				&& type != InfernoNPC.Type.HEALER_ZUK
-				&& type != InfernoNPC.Type.ZUK; // Exclude Zuk for now
-	}
+					if (tilePoly == null)
+					{
+						continue;
+					}
 
-	/**
-	 * Checks if NPCs require different prayers (making simultaneous attacks dangerous)
-	 */
-	private boolean requiresDifferentPrayers(List<InfernoNPC> npcs)
-	{
-		Set<Prayer> prayers = new HashSet<>();
-		for (InfernoNPC npc : npcs)
-		{
-			Prayer prayer = npc.getNextAttack().getPrayer();
-			if (prayer != null)
-			{
-				prayers.add(prayer);
+					OverlayUtil.renderPolygon(graphics, tilePoly, Color.BLUE);
+				}
 			}
 		}
-		// Only dangerous if they need different prayers
-		return prayers.size() > 1;
 	}
 
-	/**
-	 * Calculates priority for a group (higher damage = higher priority)
-	 */
-	private int calculateGroupPriority(List<InfernoNPC> npcs)
+	private void renderAreaSafepots(Graphics2D graphics)
 	{
-		int totalDamage = 0;
-		for (InfernoNPC npc : npcs)
-		{
-			totalDamage += getMaxDamage(npc.getType());
-		}
-		return totalDamage;
-	}
+		final InfernoSafespotGrid safespotGrid = plugin.getSafespotGrid();
+		final int projectionStamp = tileProjection.getStamp();
 
-	/**
-	 * Gets max damage for NPC type
-	 */
-	private int getMaxDamage(InfernoNPC.Type type)
-	{
-		switch (type)
+		if (safespotGrid != areaGrid || safespotGrid.getVersion() != areaGridVersion || projectionStamp != areaProjectionStamp)
 		{
-			case JAD: return 97;
-			case ZUK: return 120;
-			case MAGE: return 45;
-			case RANGER: return 40;
-			case MELEE: return 35;
-			case BAT: return 15;
-			case BLOB: return 20;
-			default: return 30;
+			buildAreaShapes(safespotGrid);
+			areaGrid = safespotGrid;
+			areaGridVersion = safespotGrid.getVersion();
+			areaProjectionStamp = projectionStamp;
 		}
-	}
-
-	// ===== END SIMPLE LOGIC =====
 
-	private void renderObstacles(Graphics2D graphics)
-	{
-		for (WorldPoint worldPoint : plugin.getObstacles())
+		for (int safeSpotId = 0; safeSpotId <= 6; safeSpotId++)
 		{
-			final LocalPoint localPoint = LocalPoint.fromWorld(client.getTopLevelWorldView(), worldPoint);
-
-			if (localPoint == null)
-			{
-				continue;
-			}
-
-			final Polygon tilePoly = Perspective.getCanvasTilePoly(client, localPoint);
-
-			if (tilePoly == null)
-			{
-				continue;
-			}
-
-			OverlayUtil.renderPolygon(graphics, tilePoly, Color.BLUE);
-		}
-	}
-
-	private void renderAreaSafepots(Graphics2D graphics)
-	{
-		for (int safeSpotId : plugin.getSafeSpotAreas().keySet())
-		{
-			if (safeSpotId > 6)
+			if (safespotGrid.areaStart(safeSpotId) == safespotGrid.areaEnd(safeSpotId))
 			{
 				continue;
 			}
@@ -379,124 +241,81 @@ public class InfernoOverlay extends Overlay
 				case 5:
 					colorEdge1 = Color.RED;
 					colorEdge2 = Color.BLUE;
-					colorFill = new Color(255, 0, 255);
+					colorFill = SAFESPOT_MAGENTA;
 					break;
 				case 6:
 					colorEdge1 = Color.GREEN;
 					colorEdge2 = Color.BLUE;
-					colorFill = new Color(0, 255, 255);
+					colorFill = SAFESPOT_CYAN;
 					break;
 				default:
 					continue;
 			}
 
-			//Add all edges, calculate average edgeSize and indicate tiles
-			final List<int[][]> allEdges = new ArrayList<>();
-			int edgeSizeSquared = 0;
+			renderAreaTilePolygon(graphics, areaFills[safeSpotId], colorFill);
+			renderFullLine(graphics, areaOutlines[safeSpotId], colorEdge1);
 
-			for (WorldPoint worldPoint : plugin.getSafeSpotAreas().get(safeSpotId))
+			if (colorEdge2 != null)
 			{
-				final LocalPoint localPoint = LocalPoint.fromWorld(client.getTopLevelWorldView(), worldPoint);
+				renderDashedLine(graphics, areaOutlines[safeSpotId], colorEdge2);
+			}
+		}
+	}
 
-				if (localPoint == null)
-				{
-					continue;
-				}
+	/**
+	 * Merges the projected tiles of every safespot area into one fill shape, and its outline
+	 * edges (found in tile space when the areas were built) into one outline shape.
+	 */
+	private void buildAreaShapes(InfernoSafespotGrid safespotGrid)
+	{
+		for (int safeSpotId = 0; safeSpotId <= 6; safeSpotId++)
+		{
+			final Path2D fill = areaFills[safeSpotId];
+			final Path2D outlines = areaOutlines[safeSpotId];
+			fill.reset();
+			outlines.reset();
 
-				final Polygon tilePoly = Perspective.getCanvasTilePoly(client, localPoint);
+			for (int i = safespotGrid.areaStart(safeSpotId); i < safespotGrid.areaEnd(safeSpotId); i++)
+			{
+				final Polygon tilePoly = tileProjection.getCanvasTilePoly(safespotGrid.getX(i), safespotGrid.getY(i));
 
 				if (tilePoly == null)
 				{
 					continue;
 				}
 
-				renderAreaTilePolygon(graphics, tilePoly, colorFill);
-
-				final int[][] edge1 = new int[][]{{tilePoly.xpoints[0], tilePoly.ypoints[0]}, {tilePoly.xpoints[1], tilePoly.ypoints[1]}};
-				edgeSizeSquared += Math.pow(tilePoly.xpoints[0] - tilePoly.xpoints[1], 2) + Math.pow(tilePoly.ypoints[0] - tilePoly.ypoints[1], 2);
-				allEdges.add(edge1);
-				final int[][] edge2 = new int[][]{{tilePoly.xpoints[1], tilePoly.ypoints[1]}, {tilePoly.xpoints[2], tilePoly.ypoints[2]}};
-				edgeSizeSquared += Math.pow(tilePoly.xpoints[1] - tilePoly.xpoints[2], 2) + Math.pow(tilePoly.ypoints[1] - tilePoly.ypoints[2], 2);
-				allEdges.add(edge2);
-				final int[][] edge3 = new int[][]{{tilePoly.xpoints[2], tilePoly.ypoints[2]}, {tilePoly.xpoints[3], tilePoly.ypoints[3]}};
-				edgeSizeSquared += Math.pow(tilePoly.xpoints[2] - tilePoly.xpoints[3], 2) + Math.pow(tilePoly.ypoints[2] - tilePoly.ypoints[3], 2);
-				allEdges.add(edge3);
-				final int[][] edge4 = new int[][]{{tilePoly.xpoints[3], tilePoly.ypoints[3]}, {tilePoly.xpoints[0], tilePoly.ypoints[0]}};
-				edgeSizeSquared += Math.pow(tilePoly.xpoints[3] - tilePoly.xpoints[0], 2) + Math.pow(tilePoly.ypoints[3] - tilePoly.ypoints[0], 2);
-				allEdges.add(edge4);
-			}
+				fill.append(tilePoly, false);
 
-			if (allEdges.size() <= 0)
-			{
-				continue;
-			}
-
-			edgeSizeSquared /= allEdges.size();
-
-			//Find and indicate unique edges
-			final int toleranceSquared = (int) Math.ceil(edgeSizeSquared / 6);
-
-			for (int i = 0; i < allEdges.size(); i++)
-			{
-				int[][] baseEdge = allEdges.get(i);
-
-				boolean duplicate = false;
+				final int outline = safespotGrid.getOutline(i);
 
-				for (int j = 0; j < allEdges.size(); j++)
+				for (int edge = 0; edge < 4; edge++)
 				{
-					if (i == j)
-					{
-						continue;
-					}
-
-					int[][] checkEdge = allEdges.get(j);
-
-					if (edgeEqualsEdge(baseEdge, checkEdge, toleranceSquared))
+					if ((outline & (1 << edge)) != 0)
 					{
-						duplicate = true;
-						break;
-					}
-				}
-
-				if (!duplicate)
-				{
-					renderFullLine(graphics, baseEdge, colorEdge1);
-
-					if (colorEdge2 != null)
-					{
-						renderDashedLine(graphics, baseEdge, colorEdge2);
+						outlines.moveTo(tilePoly.xpoints[edge], tilePoly.ypoints[edge]);
+						outlines.lineTo(tilePoly.xpoints[(edge + 1) % 4], tilePoly.ypoints[(edge + 1) % 4]);
 					}
 				}
 			}
-
 		}
 	}
 
-	private void renderDigTimer(Graphics2D g, InfernoNPC npc)
+	private void renderDigTimer(Graphics2D g, InfernoRenderPlan renderPlan, int entry)
 	{
-		String tickString = Integer.toString(npc.getIdleTicks());
-		g.setFont(new Font("Arial", plugin.getFontStyle().getFont(), config.getMeleeDigFontSize()));
-		Point canvasLocation = npc.getNpc().getCanvasTextLocation(g, tickString, 0);
-
-		if (canvasLocation == null)
-		{
-			return;
-		}
-
 		// NEEDS TO BE WORKED ON WITH SOME STATS
 		// MELEE DIG IS UNKNOWN AT THIS TIME
 		// COLLECTING DATA
-		Color digColor;
-		if (npc.getIdleTicks() < config.digTimerDangerThreshold())
-		{
-			digColor = config.getMeleeDigSafeColor();
-		}
-		else
+		String tickString = renderPlan.getLabel(entry);
+		g.setFont(renderResources.getFont(plugin.getFontStyle().getFont(), config.getMeleeDigFontSize()));
+		Point anchor = npcGeometry.getTextAnchor(renderPlan.getNpc(entry).getNpc());
+
+		if (anchor == null)
 		{
-			digColor = config.getMeleeDigDangerColor();
+			return;
 		}
 
-		renderTextLocation(g, tickString, config.getMeleeDigFontSize(), plugin.getFontStyle().getFont(), digColor, canvasLocation, false, 0);
+		Point canvasLocation = new Point(anchor.getX() - g.getFontMetrics().stringWidth(tickString) / 2, anchor.getY());
+		renderTextLocation(g, tickString, config.getMeleeDigFontSize(), plugin.getFontStyle().getFont(), renderPlan.getLabelColor(entry), canvasLocation, false, 0);
 	}
 
 
@@ -505,18 +324,18 @@ public class InfernoOverlay extends Overlay
 		graphics.setColor(config.getBlobDeathLocationColor());
 
 		plugin.getBlobDeathSpots().forEach(blobDeathSpot -> {
-			Polygon area = Perspective.getCanvasTileAreaPoly(client, blobDeathSpot.getLocation(), 3);
+			Polygon area = tileProjection.getCanvasTileAreaPoly(blobDeathSpot.getLocation(), 3);
 
 
 			Color color = config.getBlobDeathLocationColor();
 			if (config.blobDeathLocationFade())
 			{
-				color = new Color(color.getRed(), color.getGreen(), color.getBlue(), blobDeathSpot.fillAlpha());
+				color = renderResources.withAlpha(color, blobDeathSpot.fillAlpha());
 			}
 
 			renderOutlinePolygon(graphics, area, color);
 
-			graphics.setFont(new Font("Arial", Font.BOLD, plugin.getTextSize()));
+			graphics.setFont(renderResources.getFont(Font.BOLD, plugin.getTextSize()));
 			String ticks = String.valueOf(blobDeathSpot.getTicksUntilDone());
 
 			renderTextLocation(graphics,
@@ -532,23 +351,18 @@ public class InfernoOverlay extends Overlay
 
 	private void renderIndividualTilesSafespots(Graphics2D graphics)
 	{
-		for (WorldPoint worldPoint : plugin.getSafeSpotMap().keySet())
+		final InfernoSafespotGrid safespotGrid = plugin.getSafespotGrid();
+
+		for (int i = 0; i < safespotGrid.size(); i++)
 		{
-			final int safeSpotId = plugin.getSafeSpotMap().get(worldPoint);
+			final int safeSpotId = safespotGrid.getId(i);
 
 			if (safeSpotId > 6)
 			{
 				continue;
 			}
 
-			final LocalPoint localPoint = LocalPoint.fromWorld(client.getTopLevelWorldView(), worldPoint);
-
-			if (localPoint == null)
-			{
-				continue;
-			}
-
-			final Polygon tilePoly = Perspective.getCanvasTilePoly(client, localPoint);
+			final Polygon tilePoly = tileProjection.getCanvasTilePoly(safespotGrid.getX(i), safespotGrid.getY(i));
 
 			if (tilePoly == null)
 			{
@@ -571,13 +385,13 @@ public class InfernoOverlay extends Overlay
 					color = Color.BLUE;
 					break;
 				case 4:
-					color = new Color(255, 255, 0);
+					color = Color.YELLOW;
 					break;
 				case 5:
-					color = new Color(255, 0, 255);
+					color = SAFESPOT_MAGENTA;
 					break;
 				case 6:
-					color = new Color(0, 255, 255);
+					color = SAFESPOT_CYAN;
 					break;
 				default:
 					continue;
@@ -587,68 +401,73 @@ public class InfernoOverlay extends Overlay
 		}
 	}
 
-	private void renderTicksOnNpc(Graphics2D graphics, InfernoNPC infernoNPC, NPC renderOnNPC)
+	private void renderTicksOnNpc(Graphics2D graphics, InfernoRenderPlan renderPlan, int entry, NPC renderOnNPC)
 	{
-		final Color color = (infernoNPC.getTicksTillNextAttack() == 1
-				|| (infernoNPC.getType() == InfernoNPC.Type.BLOB && infernoNPC.getTicksTillNextAttack() == 4))
-				? infernoNPC.getNextAttack().getCriticalColor() : infernoNPC.getNextAttack().getNormalColor();
+		final int flags = renderPlan.getFlags(entry);
+		final String tickText = renderPlan.getLabel(entry);
+		final BufferedImage sprite = tickAtlas.getSprite(graphics, renderPlan.getLabelValue(entry), renderPlan.getLabelColor(entry),
+				plugin.getFontStyle().getFont(), plugin.getTextSize());
+		final Point anchor = npcGeometry.getTextAnchor(renderOnNPC);
 
-		// Get simultaneous attack information
-		Map<InfernoNPC, SimultaneousGroup> simultaneousNPCs = findSimultaneousAttackers();
-		SimultaneousGroup group = simultaneousNPCs.get(infernoNPC);
+		if (anchor == null)
+		{
+			return;
+		}
 
-		String tickText = String.valueOf(infernoNPC.getTicksTillNextAttack());
-		final Point canvasPoint = renderOnNPC.getCanvasTextLocation(graphics, tickText, 0);
+		final int textX;
+		final int textY = anchor.getY();
 
-		if (canvasPoint != null)
+		if (sprite != null)
 		{
-			// Draw the tick number (normal size)
-			graphics.setFont(new Font("Arial", plugin.getFontStyle().getFont(), plugin.getTextSize()));
-			graphics.setColor(color);
-			graphics.drawString(tickText, canvasPoint.getX(), canvasPoint.getY());
+			// Centered on the ground level anchor like getCanvasTextLocation(graphics, tickText, 0), with the
+			// text baseline of the sprite on the anchor
+			textX = anchor.getX() - sprite.getWidth() / 2;
+			graphics.drawImage(sprite, textX, textY - tickAtlas.getAscent(), null);
+		}
+		else
+		{
+			graphics.setFont(renderResources.getFont(plugin.getFontStyle().getFont(), plugin.getTextSize()));
+			textX = anchor.getX() - graphics.getFontMetrics().stringWidth(tickText) / 2;
+			graphics.setColor(renderPlan.getLabelColor(entry));
+			graphics.drawString(tickText, textX, textY);
+		}
 
-			// Draw simultaneous attack indicator if needed
-			if (group != null && !renderOnNPC.isDead() && infernoNPC.getTicksTillNextAttack() > 0)
-			{
-				// Calculate position for the indicator
-				int indicatorFontSize = Math.max(12, plugin.getTextSize() / 2);
-				graphics.setFont(new Font("Arial", Font.BOLD, indicatorFontSize));
+		// Draw simultaneous attack indicator if needed
+		if ((flags & InfernoRenderPlan.GROUP_INDICATOR) != 0 && !renderOnNPC.isDead())
+		{
+			// Calculate position for the indicator
+			int indicatorFontSize = Math.max(12, plugin.getTextSize() / 2);
+			graphics.setFont(renderResources.getFont(Font.BOLD, indicatorFontSize));
 
-				int tickWidth = graphics.getFontMetrics().stringWidth(tickText);
-				int indicatorX = canvasPoint.getX() + tickWidth + 3;
-				int indicatorY = canvasPoint.getY() - (plugin.getTextSize() - indicatorFontSize) / 2;
+			int tickWidth = graphics.getFontMetrics().stringWidth(tickText);
+			int indicatorX = textX + tickWidth + 3;
+			int indicatorY = textY - (plugin.getTextSize() - indicatorFontSize) / 2;
 
-				// Draw background circle for better visibility
-				graphics.setColor(new Color(0, 0, 0, 180));
-				graphics.fillOval(indicatorX - 2, indicatorY - indicatorFontSize + 2,
-						indicatorFontSize + 4, indicatorFontSize + 2);
+			// Draw background circle for better visibility
+			graphics.setColor(INDICATOR_BACKGROUND_COLOR);
+			graphics.fillOval(indicatorX - 2, indicatorY - indicatorFontSize + 2,
+					indicatorFontSize + 4, indicatorFontSize + 2);
 
-				// Draw the indicator with group color
-				graphics.setColor(group.color);
-				graphics.drawString("!", indicatorX, indicatorY);
+			// Draw the indicator with group color
+			graphics.setColor(renderPlan.getGroupColor(entry));
+			graphics.drawString("!", indicatorX, indicatorY);
 
-				// Optional: Draw additional info for high priority groups
-				if (group.priority > 80) // High damage threshold
-				{
-					graphics.setColor(Color.RED);
-					graphics.drawString("⚠", indicatorX + 8, indicatorY);
-				}
+			// Optional: Draw additional info for high priority groups
+			if ((flags & InfernoRenderPlan.GROUP_HIGH_PRIORITY) != 0)
+			{
+				graphics.setColor(Color.RED);
+				graphics.drawString("⚠", indicatorX + 8, indicatorY);
 			}
 		}
 	}
 
 	private void renderNpcLocation(Graphics2D graphics, InfernoNPC infernoNPC)
 	{
-		final LocalPoint localPoint = LocalPoint.fromWorld(client.getTopLevelWorldView(), infernoNPC.getNpc().getWorldLocation());
+		final Polygon tilePolygon = npcGeometry.getTilePoly(infernoNPC.getNpc());
 
-		if (localPoint != null)
+		if (tilePolygon != null)
 		{
-			final Polygon tilePolygon = Perspective.getCanvasTilePoly(client, localPoint);
-
-			if (tilePolygon != null)
-			{
-				OverlayUtil.renderPolygon(graphics, tilePolygon, Color.BLUE);
-			}
+			OverlayUtil.renderPolygon(graphics, tilePolygon, Color.BLUE);
 		}
 	}
 
@@ -669,23 +488,24 @@ public class InfernoOverlay extends Overlay
 
 	private void renderDescendingBoxes(Graphics2D graphics)
 	{
-		for (Integer tick : plugin.getUpcomingAttacks().keySet())
+		final AttackTimeline upcomingAttacks = plugin.getUpcomingAttacks();
+
+		for (int tick = 0; tick <= upcomingAttacks.getMaxTick(); tick++)
 		{
-			final Map<InfernoNPC.Attack, Integer> attackPriority = plugin.getUpcomingAttacks().get(tick);
-			int bestPriority = 999;
-			InfernoNPC.Attack bestAttack = null;
+			final InfernoNPC.Attack bestAttack = upcomingAttacks.getBestAttack(tick);
 
-			for (Map.Entry<InfernoNPC.Attack, Integer> attackEntry : attackPriority.entrySet())
+			if (bestAttack == null)
 			{
-				if (attackEntry.getValue() < bestPriority)
-				{
-					bestAttack = attackEntry.getKey();
-					bestPriority = attackEntry.getValue();
-				}
+				continue;
 			}
 
-			for (InfernoNPC.Attack currentAttack : attackPriority.keySet())
+			for (InfernoNPC.Attack currentAttack : InfernoNPC.Attack.values())
 			{
+				if (!upcomingAttacks.has(tick, currentAttack))
+				{
+					continue;
+				}
+
 				//TODO: Config values for these colors
 				final Color color = (tick == 1 && currentAttack == bestAttack) ? Color.RED : Color.ORANGE;
 				final Widget prayerWidget = getWidget(currentAttack.getPrayer());
@@ -754,41 +574,27 @@ public class InfernoOverlay extends Overlay
 		}
 	}
 
-	private boolean edgeEqualsEdge(int[][] edge1, int[][] edge2, int toleranceSquared)
-	{
-		return (pointEqualsPoint(edge1[0], edge2[0], toleranceSquared) && pointEqualsPoint(edge1[1], edge2[1], toleranceSquared))
-				|| (pointEqualsPoint(edge1[0], edge2[1], toleranceSquared) && pointEqualsPoint(edge1[1], edge2[0], toleranceSquared));
-	}
-
-	private boolean pointEqualsPoint(int[] point1, int[] point2, int toleranceSquared)
-	{
-		double distanceSquared = Math.pow(point1[0] - point2[0], 2) + Math.pow(point1[1] - point2[1], 2);
-
-		return distanceSquared <= toleranceSquared;
-	}
-
-	public static void renderAreaTilePolygon(Graphics2D graphics, Shape poly, Color color)
+	public void renderAreaTilePolygon(Graphics2D graphics, Shape poly, Color color)
 	{
-		graphics.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 10));
+		graphics.setColor(renderResources.withAlpha(color, 10));
 		graphics.fill(poly);
 	}
 
-	public static void renderFullLine(Graphics2D graphics, int[][] line, Color color)
+	public static void renderFullLine(Graphics2D graphics, Shape line, Color color)
 	{
 		graphics.setColor(color);
 		final Stroke originalStroke = graphics.getStroke();
-		graphics.setStroke(new BasicStroke(2));
-		graphics.drawLine(line[0][0], line[0][1], line[1][0], line[1][1]);
+		graphics.setStroke(InfernoRenderResources.OUTLINE_STROKE);
+		graphics.draw(line);
 		graphics.setStroke(originalStroke);
 	}
 
-	public static void renderDashedLine(Graphics2D graphics, int[][] line, Color color)
+	public static void renderDashedLine(Graphics2D graphics, Shape line, Color color)
 	{
 		graphics.setColor(color);
 		final Stroke originalStroke = graphics.getStroke();
-		graphics.setStroke(new BasicStroke(2));
-		graphics.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{9}, 0));
-		graphics.drawLine(line[0][0], line[0][1], line[1][0], line[1][1]);
+		graphics.setStroke(InfernoRenderResources.DASHED_STROKE);
+		graphics.draw(line);
 		graphics.setStroke(originalStroke);
 	}
 
@@ -796,7 +602,7 @@ public class InfernoOverlay extends Overlay
 	{
 		graphics.setColor(color);
 		final Stroke originalStroke = graphics.getStroke();
-		graphics.setStroke(new BasicStroke(2));
+		graphics.setStroke(InfernoRenderResources.OUTLINE_STROKE);
 		graphics.draw(poly);
 		graphics.setStroke(originalStroke);
 	}
@@ -805,7 +611,7 @@ public class InfernoOverlay extends Overlay
 	{
 		graphics.setColor(color);
 		final Stroke originalStroke = graphics.getStroke();
-		graphics.setStroke(new BasicStroke(2));
+		graphics.setStroke(InfernoRenderResources.OUTLINE_STROKE);
 		graphics.draw(poly);
 		graphics.fill(poly);
 		graphics.setStroke(originalStroke);
@@ -828,22 +634,21 @@ public class InfernoOverlay extends Overlay
 		graphics.drawString(text, x, y);
 	}
 
-	public static void renderTextLocation(Graphics2D graphics, String txtString, int fontSize, int fontStyle, Color fontColor, Point canvasPoint, boolean shadows, int yOffset)
+	public void renderTextLocation(Graphics2D graphics, String txtString, int fontSize, int fontStyle, Color fontColor, Point canvasPoint, boolean shadows, int yOffset)
 	{
-		graphics.setFont(new Font("Arial", fontStyle, fontSize));
-		if (canvasPoint != null)
+		graphics.setFont(renderResources.getFont(fontStyle, fontSize));
+		if (canvasPoint != null && !Strings.isNullOrEmpty(txtString))
 		{
-			final Point canvasCenterPoint = new Point(
-					canvasPoint.getX(),
-					canvasPoint.getY() + yOffset);
-			final Point canvasCenterPoint_shadow = new Point(
-					canvasPoint.getX() + 1,
-					canvasPoint.getY() + 1 + yOffset);
+			final int x = canvasPoint.getX();
+			final int y = canvasPoint.getY() + yOffset;
+			graphics.setColor(Color.BLACK);
 			if (shadows)
 			{
-				renderTextLocation(graphics, canvasCenterPoint_shadow, txtString, Color.BLACK);
+				graphics.drawString(txtString, x + 2, y + 2);
 			}
-			renderTextLocation(graphics, canvasCenterPoint, txtString, fontColor);
+			graphics.drawString(txtString, x + 1, y + 1);
+			graphics.setColor(fontColor);
+			graphics.drawString(txtString, x, y);
 		}
 	}
 }
\ No newline at end of file
@@ -43,6 +43,11 @@ import javax.inject.Inject;
 import java.util.Objects;
 import java.util.Set;
 import java.util.HashSet;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import net.runelite.client.RuneLite;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.api.ChatMessageType;
 import net.runelite.client.plugins.PrayAgainstPlayer.RecommendedPrayerChangedEvent;
@@ -58,6 +63,7 @@ import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.AnimationChanged;
+import net.runelite.api.events.BeforeRender;
 import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
@@ -120,6 +126,24 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
     @Inject
     private AttackTimerOverlay attackTimerOverlay;
 
+    @Inject
+    private InfernoTimingOverlay timingOverlay;
+
+    @Inject
+    private InfernoTickAtlas tickAtlas;
+
+    @Inject
+    private InfernoNpcGeometry npcGeometry;
+
+    @Inject
+    private InfernoRenderResources renderResources;
+
+    @Inject
+    private InfernoTileProjection tileProjection;
+
+    @Inject
+    private ConfigManager configManager;
+
     @Inject
     private InfernoConfig config;
 
@@ -134,19 +158,16 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
     private int currentWaveNumber;
 
     @Getter(AccessLevel.PACKAGE)
-    private final List<InfernoNPC> infernoNpcs = new ArrayList<>();
+    private final InfernoNpcRegistry npcRegistry = new InfernoNpcRegistry();
 
     @Getter(AccessLevel.PACKAGE)
-    private final Map<Integer, Map<InfernoNPC.Attack, Integer>> upcomingAttacks = new HashMap<>();
+    private final AttackTimeline upcomingAttacks = new AttackTimeline();
     @Getter(AccessLevel.PACKAGE)
     private InfernoNPC.Attack closestAttack = null;
 
     // ===== ENHANCED PRAYER SYSTEM: Enhanced Threat Tracking =====
     @Getter(AccessLevel.PACKAGE)
-    private final Map<Integer, List<InfernoNPC>> attacksByTick = new HashMap<>();
-
-    @Getter(AccessLevel.PACKAGE)
-    private final List<InfernoNPC> simultaneousAttackers = new ArrayList<>();
+    private AttackGroupsSnapshot attackGroups = AttackGroupsSnapshot.EMPTY;
 
     @Getter(AccessLevel.PACKAGE)
     private boolean emergencyPrayerSwitching = false;
@@ -162,7 +183,29 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
     // ============================================================
 
     @Getter(AccessLevel.PACKAGE)
-    private final List<WorldPoint> obstacles = new ArrayList<>();
+    private final InfernoObstacleIndex obstacles = new InfernoObstacleIndex();
+
+    private final InfernoCollisionMap collisionMap = new InfernoCollisionMap();
+
+    // Game tick of the last safespot calculation, the grid stays current while the inputs don't change
+    private int safespotTick = -1;
+
+    // Inputs of the last safespot and central nibbler calculations, to skip them while nothing moved
+    private final InfernoStageInputs safespotInputs = new InfernoStageInputs();
+    private final InfernoStageInputs centralNibblerInputs = new InfernoStageInputs();
+
+    @Getter(AccessLevel.PACKAGE)
+    private final InfernoStageTimings stageTimings = new InfernoStageTimings();
+
+    // Incremented on every change to the plugin's config
+    @Getter(AccessLevel.PACKAGE)
+    private volatile int configGeneration;
+
+    // What the Inferno overlay draws on every NPC, built once per tick
+    private final InfernoRenderPlan renderPlan = new InfernoRenderPlan();
+
+    @Getter(AccessLevel.PACKAGE)
+    private final InfernoPredictionTracker predictionTracker = new InfernoPredictionTracker();
 
     @Getter(AccessLevel.PACKAGE)
     private boolean finalPhase = false;
@@ -192,10 +235,13 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
     // 5 = pray melee, magic
     // 6 = pray range, magic
     // 7 = pray all
-    @Getter(AccessLevel.PACKAGE)
-    private final Map<WorldPoint, Integer> safeSpotMap = new HashMap<>();
-    @Getter(AccessLevel.PACKAGE)
-    private final Map<Integer, List<WorldPoint>> safeSpotAreas = new HashMap<>();
+    private final InfernoSafespotWorker safespotWorker = new InfernoSafespotWorker();
+    private final InfernoReplayRecorder replayRecorder = new InfernoReplayRecorder();
+    private final InfernoRunLog runLog = new InfernoRunLog();
+    // Tick and player tile of the run log tick still waiting for its safespot grid, or -1
+    private int runLogSafespotTick = -1;
+    private int runLogSafespotX;
+    private int runLogSafespotY;
 
     @Getter(AccessLevel.PACKAGE)
     List<InfernoBlobDeathSpot> blobDeathSpots = new ArrayList<>();
@@ -232,6 +278,8 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
     @Override
     protected void startUp()
     {
+        safespotWorker.start();
+
         waveOverlay.setDisplayMode(config.waveDisplay());
         waveOverlay.setWaveHeaderColor(config.getWaveOverlayHeaderColor());
         waveOverlay.setWaveTextColor(config.getWaveTextColor());
@@ -248,6 +296,21 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             overlayManager.add(jadOverlay);
             overlayManager.add(prayerOverlay);
             overlayManager.add(attackTimerOverlay);
+
+            if (config.stageTimingOverlay())
+            {
+                overlayManager.add(timingOverlay);
+            }
+
+            if (config.recordReplays())
+            {
+                replayRecorder.start(getReplayDirectory());
+            }
+
+            if (config.writeRunLog())
+            {
+                runLog.start(getRunLogDirectory());
+            }
         }
     }
 
@@ -259,9 +322,14 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         overlayManager.remove(jadOverlay);
         overlayManager.remove(prayerOverlay);
         overlayManager.remove(attackTimerOverlay);
+        overlayManager.remove(timingOverlay);
 
         infoBoxManager.removeInfoBox(spawnTimerInfoBox);
         currentWaveNumber = -1;
+
+        safespotWorker.stop();
+        replayRecorder.stop();
+        runLog.stop();
     }
 
     // ===== CLICK PRAYER SYSTEM =====
@@ -273,29 +341,28 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             return;
         }
 
+        // May still be the grid of the previous tick while this tick's calculation is running
+        final InfernoSafespotGrid safespotGrid = getSafespotGrid();
+
         if (config.spawnTimerDebug())
         {
             spawnDebug("=== WALK CLICK DEBUG ===");
-            spawnDebug("Checking " + safeSpotMap.size() + " safespot tiles");
+            spawnDebug("Checking " + safespotGrid.size() + " safespot tiles of tick " + safespotGrid.getTick()
+                    + (isSafespotGridCurrent(safespotGrid) ? "" : " (previous calculation)"));
         }
 
-        // Check all safespot tiles to see if any match the clicked coordinates
-        for (Map.Entry<WorldPoint, Integer> entry : safeSpotMap.entrySet())
-        {
-            WorldPoint safespotTile = entry.getKey();
-            Integer safespotValue = entry.getValue();
+        // For "Walk here" actions, param0 and param1 are world coordinates
+        final int safespotValue = safespotGrid.getId(event.getParam0(), event.getParam1());
 
-            // Convert safespot world point to scene coordinates
-            if (isClickedTile(safespotTile, event.getParam0(), event.getParam1()))
+        if (safespotValue != -1)
+        {
+            if (config.spawnTimerDebug())
             {
-                if (config.spawnTimerDebug())
-                {
-                    spawnDebug("CLICKED SAFESPOT: " + safespotTile + " with value: " + safespotValue);
-                }
-
-                processClickedSafespot(safespotTile);
-                return;
+                spawnDebug("CLICKED SAFESPOT: " + event.getParam0() + ", " + event.getParam1() + " with value: " + safespotValue);
             }
+
+            processClickedSafespot(safespotValue);
+            return;
         }
 
         if (config.spawnTimerDebug())
@@ -304,30 +371,9 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         }
     }
 
-    private boolean isClickedTile(WorldPoint safespotTile, int clickParam0, int clickParam1)
-    {
-        try
-        {
-            // For "Walk here" actions, param0 and param1 are world coordinates
-            return safespotTile.getX() == clickParam0 && safespotTile.getY() == clickParam1;
-        }
-        catch (Exception e)
-        {
-            return false;
-        }
-    }
-
-    private void processClickedSafespot(WorldPoint clickedTile)
+    private void processClickedSafespot(int safespotValue)
     {
-        Integer safespotValue = safeSpotMap.get(clickedTile);
-
-        if (config.spawnTimerDebug())
-        {
-            spawnDebug("PROCESSING CLICKED TILE: " + clickedTile +
-                    " with safespot value: " + safespotValue);
-        }
-
-        if (safespotValue != null && safespotValue > 0)
+        if (safespotValue > 0)
         {
             Prayer recommendedPrayer = getPrayerForSafespotValue(safespotValue);
             if (recommendedPrayer != null)
@@ -348,7 +394,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
                 spawnDebug("NO PRAYER NEEDED for safespot value: " + safespotValue);
             }
         }
-        else if (safespotValue != null && safespotValue == 0)
+        else
         {
             // Safe tile - send "none" prayer
             eventBus.post(new RecommendedPrayerChangedEvent("none"));
@@ -359,10 +405,6 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
                 spawnDebug("SAFE TILE - Prayer set to none");
             }
         }
-        else if (config.spawnTimerDebug())
-        {
-            spawnDebug("SAFESPOT VALUE IS NULL: " + safespotValue);
-        }
     }
 
     private Prayer getPrayerForSafespotValue(int safespotValue)
@@ -394,7 +436,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         List<InfernoNPC> meleeThreats = new ArrayList<>();
         List<InfernoNPC> rangeThreats = new ArrayList<>();
 
-        for (InfernoNPC npc : infernoNpcs)
+        for (InfernoNPC npc : npcRegistry.getAll())
         {
             if (!isPrayerHelper(npc) || npc.getNpc().isDead()) continue;
 
@@ -436,7 +478,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         List<InfernoNPC> meleeThreats = new ArrayList<>();
         List<InfernoNPC> magicThreats = new ArrayList<>();
 
-        for (InfernoNPC npc : infernoNpcs)
+        for (InfernoNPC npc : npcRegistry.getAll())
         {
             if (!isPrayerHelper(npc) || npc.getNpc().isDead()) continue;
 
@@ -475,7 +517,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         List<InfernoNPC> rangeThreats = new ArrayList<>();
         List<InfernoNPC> magicThreats = new ArrayList<>();
 
-        for (InfernoNPC npc : infernoNpcs)
+        for (InfernoNPC npc : npcRegistry.getAll())
         {
             if (!isPrayerHelper(npc) || npc.getNpc().isDead()) continue;
 
@@ -511,7 +553,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
     private Prayer getPriorityPrayerForAllThreats()
     {
         // For all threats, prioritize based on immediate danger and damage
-        Prayer emergencyPrayer = calculateEmergencyPrayer(new ArrayList<>(infernoNpcs.stream()
+        Prayer emergencyPrayer = calculateEmergencyPrayer(new ArrayList<>(npcRegistry.getAll().stream()
                 .filter(npc -> isPrayerHelper(npc) && !npc.getNpc().isDead())
                 .collect(java.util.stream.Collectors.toList())));
 
@@ -526,6 +568,12 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             return;
         }
 
+        configGeneration++;
+        safespotInputs.invalidate();
+        renderPlan.invalidate();
+        renderResources.invalidate();
+        tickAtlas.invalidate();
+
         if (event.getKey().endsWith("color"))
         {
             waveOverlay.setWaveHeaderColor(config.getWaveOverlayHeaderColor());
@@ -542,6 +590,71 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
                 overlayManager.add(waveOverlay);
             }
         }
+        else if ("stageTimingOverlay".equals(event.getKey()))
+        {
+            overlayManager.remove(timingOverlay);
+
+            if (isInInferno() && config.stageTimingOverlay())
+            {
+                overlayManager.add(timingOverlay);
+            }
+        }
+        else if ("exportStageTimings".equals(event.getKey()) && config.exportStageTimings())
+        {
+            exportStageTimings();
+            configManager.setConfiguration("inferno", "exportStageTimings", false);
+        }
+        else if ("recordReplays".equals(event.getKey()))
+        {
+            replayRecorder.stop();
+
+            if (isInInferno() && config.recordReplays())
+            {
+                replayRecorder.start(getReplayDirectory());
+            }
+        }
+        else if ("writeRunLog".equals(event.getKey()))
+        {
+            runLog.stop();
+
+            if (isInInferno() && config.writeRunLog())
+            {
+                runLog.start(getRunLogDirectory());
+            }
+        }
+    }
+
+    private File getReplayDirectory()
+    {
+        return new File(new File(RuneLite.RUNELITE_DIR, "inferno"), "replays");
+    }
+
+    private File getRunLogDirectory()
+    {
+        return new File(new File(RuneLite.RUNELITE_DIR, "inferno"), "runs");
+    }
+
+    private void exportStageTimings()
+    {
+        final File directory = new File(RuneLite.RUNELITE_DIR, "inferno");
+        final File file = new File(directory, "stage-timings-" + System.currentTimeMillis() + ".csv");
+
+        try
+        {
+            Files.createDirectories(directory.toPath());
+
+            try (Writer writer = Files.newBufferedWriter(file.toPath()))
+            {
+                stageTimings.writeCsv(writer);
+            }
+
+            stageTimings.reset();
+            client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Inferno stage timings written to " + file.getName(), null);
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to write inferno stage timings", e);
+        }
     }
 
     @Subscribe
@@ -554,43 +667,86 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
 
         lastTick = System.currentTimeMillis();
 
+        final long tickStart = System.nanoTime();
+        long stageStart = tickStart;
+
+        if (collisionMap.refresh(client.getTopLevelWorldView()))
+        {
+            safespotInputs.invalidate();
+        }
+
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.COLLISION_MAP, stageStart);
+
         upcomingAttacks.clear();
         calculateUpcomingAttacks();
 
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.UPCOMING_ATTACKS, stageStart);
+
         // ===== ENHANCED PRAYER SYSTEM: Enhanced Prayer Priority Calculation =====
-        if (config.showAttackTimerOverlay() || config.proactiveThreatDetection())
-        {
-            calculateEnhancedPrayerPriority();
-        }
+        // Always calculated, both overlays read the simultaneous attack groups
+        attackGroups = AttackGroupsSnapshot.build(npcRegistry.getAll(), this::isPrayerHelper, config.simultaneousAttackThreshold());
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.PRAYER_PRIORITY, stageStart);
         // ========================================================================
 
         closestAttack = null;
         calculateClosestAttack();
 
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.CLOSEST_ATTACK, stageStart);
+
         // ===== ENHANCED PRAYER SYSTEM: Proactive Threat Detection =====
         if (config.proactiveThreatDetection())
         {
             detectMovementThreats();
+            stageStart = stageTimings.record(InfernoStageTimings.Stage.MOVEMENT_THREATS, stageStart);
         }
         // ==============================================================
 
         doPraying();
 
-        safeSpotMap.clear();
-        calculateSafespots();
-        safeSpotAreas.clear();
-        calculateSafespotAreas();
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.PRAYING, stageStart);
+
+        if (replayRecorder.isRecording())
+        {
+            recordReplayTick();
+            // Kept out of the safespot stage
+            stageStart = System.nanoTime();
+        }
+
+        if (haveSafespotInputsChanged())
+        {
+            calculateSafespots();
+        }
+
+        cachePlayerTileAttacks();
+
+        lastLocation = client.getLocalPlayer().getWorldLocation();
+
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.SAFESPOTS, stageStart);
 
-        obstacles.clear();
-        calculateObstacles();
+        obstacles.update(client.getTopLevelWorldView());
 
-        centralNibbler = null;
-        calculateCentralNibbler();
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.OBSTACLES, stageStart);
+
+        if (haveCentralNibblerInputsChanged())
+        {
+            centralNibbler = null;
+            calculateCentralNibbler();
+        }
+
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.CENTRAL_NIBBLER, stageStart);
 
         calculateSpawnTimerInfobox();
 
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.SPAWN_TIMER, stageStart);
+
         manageBlobDeathLocations();
 
+        stageStart = stageTimings.record(InfernoStageTimings.Stage.BLOB_DEATHS, stageStart);
+
+        renderPlan.build(this, config, client);
+
+        stageTimings.record(InfernoStageTimings.Stage.RENDER_PLAN, stageStart);
+
         //if finalPhaseTick, we will skip incrementing because we already did it in onNpcSpawned
         if (finalPhaseTick)
         {
@@ -600,53 +756,98 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         {
             ticksSinceFinalPhase++;
         }
+
+        stageTimings.record(InfernoStageTimings.Stage.GAME_TICK, tickStart);
+
+        if (runLog.isOpen())
+        {
+            // The previous tick's grid may have been published since the last frame
+            updateRunLogSafespot();
+            writeRunLogTick();
+        }
     }
 
-    // ===== ENHANCED PRAYER SYSTEM: Enhanced Prayer Priority Calculation =====
-    private void calculateEnhancedPrayerPriority()
+    /**
+     * Appends the state of this tick to the run log, without allocating.
+     */
+    private void writeRunLogTick()
     {
-        attacksByTick.clear();
-        simultaneousAttackers.clear();
+        final InfernoSafespotGrid safespotGrid = getSafespotGrid();
+        final int safespotId;
 
-        // Group attacks by tick
-        for (InfernoNPC npc : infernoNpcs)
+        if (isSafespotGridCurrent(safespotGrid))
         {
-            if (npc.getTicksTillNextAttack() > 0 && isPrayerHelper(npc))
-            {
-                attacksByTick.computeIfAbsent(npc.getTicksTillNextAttack(), k -> new ArrayList<>())
-                        .add(npc);
-            }
+            safespotId = safespotGrid.getId(lastLocation.getX(), lastLocation.getY());
+            runLogSafespotTick = -1;
         }
+        else
+        {
+            // Filled in by updateRunLogSafespot once this tick's grid is published
+            safespotId = InfernoRunLog.SAFESPOT_UNKNOWN;
+            runLogSafespotTick = safespotTick;
+            runLogSafespotX = lastLocation.getX();
+            runLogSafespotY = lastLocation.getY();
+        }
+
+        final List<InfernoNPC> infernoNpcs = npcRegistry.getAll();
+
+        runLog.writeTick(client.getTickCount(), currentWaveNumber,
+                attackGroups.getGroups().isEmpty() ? 0 : InfernoRunLog.TICK_SIMULTANEOUS,
+                toRunLogPrayer(lastRecommendedPrayer), closestAttack, safespotId,
+                lastLocation.getX(), lastLocation.getY(), infernoNpcs.size());
 
-        // Identify simultaneous attacks within threshold
-        int threshold = config.simultaneousAttackThreshold();
-        for (Map.Entry<Integer, List<InfernoNPC>> entry : attacksByTick.entrySet())
+        for (int i = 0; i < infernoNpcs.size(); i++)
         {
-            int tick = entry.getKey();
-            List<InfernoNPC> npcsOnTick = entry.getValue();
+            final InfernoNPC infernoNPC = infernoNpcs.get(i);
+            final NPC npc = infernoNPC.getNpc();
+            final InfernoObstacleIndex.Footprint footprint = obstacles.getFootprint(npc);
 
-            // Check for NPCs attacking on same tick
-            if (npcsOnTick.size() > 1)
-            {
-                simultaneousAttackers.addAll(npcsOnTick);
-            }
+            runLog.writeNpc(npc.getIndex(), npc.getId(),
+                    footprint == null ? -1 : footprint.getX(), footprint == null ? -1 : footprint.getY(),
+                    footprint == null ? 0 : footprint.getSize(),
+                    npc.getAnimation(), infernoNPC.getTicksTillNextAttack(), infernoNPC.getNextAttack(),
+                    infernoNPC.getPredictionOutcome());
+        }
+    }
 
-            // Check for NPCs attacking within threshold of each other
-            for (int i = 1; i <= threshold; i++)
-            {
-                List<InfernoNPC> nearbyTickNPCs = attacksByTick.get(tick + i);
-                if (nearbyTickNPCs != null && !nearbyTickNPCs.isEmpty())
-                {
-                    if (npcsOnTick.size() > 0)
-                    {
-                        simultaneousAttackers.addAll(npcsOnTick);
-                        simultaneousAttackers.addAll(nearbyTickNPCs);
-                    }
-                }
-            }
+    /**
+     * Writes the safespot id of the last run log tick once the grid calculated for it is published.
+     */
+    private void updateRunLogSafespot()
+    {
+        if (runLogSafespotTick == -1)
+        {
+            return;
+        }
+
+        final InfernoSafespotGrid safespotGrid = getSafespotGrid();
+
+        if (safespotGrid.getTick() == runLogSafespotTick)
+        {
+            runLog.updateSafespotId(safespotGrid.getId(runLogSafespotX, runLogSafespotY));
+            runLogSafespotTick = -1;
+        }
+    }
+
+    private static int toRunLogPrayer(String recommendation)
+    {
+        if (recommendation == null)
+        {
+            return InfernoRunLog.PRAYER_NONE;
+        }
+
+        switch (recommendation)
+        {
+            case "protect_from_melee":
+                return InfernoRunLog.PRAYER_MELEE;
+            case "protect_from_missiles":
+                return InfernoRunLog.PRAYER_MISSILES;
+            case "protect_from_magic":
+                return InfernoRunLog.PRAYER_MAGIC;
+            default:
+                return InfernoRunLog.PRAYER_NONE;
         }
     }
-    // ========================================================================
 
     // ===== ENHANCED PRAYER SYSTEM: Proactive Threat Detection =====
     private void detectMovementThreats()
@@ -673,7 +874,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         Set<InfernoNPC> newThreats = new HashSet<>();
         Set<InfernoNPC> currentThreats = getCurrentThreats();
 
-        for (InfernoNPC npc : infernoNpcs)
+        for (InfernoNPC npc : npcRegistry.getAll())
         {
             if (!isPrayerHelper(npc)) continue;
 
@@ -705,7 +906,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         Set<InfernoNPC> currentThreats = new HashSet<>();
         WorldPoint playerPos = client.getLocalPlayer().getWorldLocation();
 
-        for (InfernoNPC npc : infernoNpcs)
+        for (InfernoNPC npc : npcRegistry.getAll())
         {
             if (isPrayerHelper(npc) && npc.canAttack(client, playerPos))
             {
@@ -742,7 +943,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         for (InfernoNPC npc : newThreats)
         {
             InfernoNPC.Attack attackType = npc.getType().getDefaultAttack();
-            int damage = getMaxDamage(npc.getType());
+            int damage = AttackGroupsSnapshot.getMaxDamage(npc.getType());
 
             switch (attackType)
             {
@@ -776,29 +977,6 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         }
     }
 
-    private int getMaxDamage(InfernoNPC.Type type)
-    {
-        // Approximate max damage values for different NPC types
-        switch (type)
-        {
-            case JAD:
-                return 97;
-            case ZUK:
-                return 120;
-            case MAGE:
-                return 45;
-            case RANGER:
-                return 40;
-            case MELEE:
-                return 35;
-            case BAT:
-                return 15;
-            case BLOB:
-                return 20;
-            default:
-                return 30;
-        }
-    }
     // ==============================================================
 
     // Enhanced doPraying with emergency switching and multi-threat handling
@@ -816,37 +994,8 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             return;
         }
 
-        Prayer bestPrayer = null;
-
         // ===== ENHANCED PRAYER SYSTEM: Multi-Threat Handling =====
-        if (config.showAttackTimerOverlay() && multipleNPCsAttackingThisTick())
-        {
-            bestPrayer = calculateCombinedThreatPrayer();
-        }
-        else
-        {
-            // Original prayer calculation logic
-            for (Integer tick : getUpcomingAttacks().keySet())
-            {
-                if (tick != 1)
-                    continue;
-
-                final Map<InfernoNPC.Attack, Integer> attackPriority = getUpcomingAttacks().get(tick);
-                int bestPriority = Integer.MAX_VALUE;
-                InfernoNPC.Attack bestAttack = null;
-
-                for (Map.Entry<InfernoNPC.Attack, Integer> attackEntry : attackPriority.entrySet())
-                {
-                    if (attackEntry.getValue() < bestPriority)
-                    {
-                        bestAttack = attackEntry.getKey();
-                        bestPriority = attackEntry.getValue();
-                    }
-                }
-                if (bestAttack != null)
-                    bestPrayer = bestAttack.getPrayer();
-            }
-        }
+        Prayer bestPrayer = attackGroups.getNextTickPrayer(upcomingAttacks, config.showAttackTimerOverlay());
         // ============================================================
 
         if (config.offTickMeleeJad() && bestPrayer == null && NpcUtils.getNearestNpc("JalTok-Jad") != null)
@@ -876,59 +1025,6 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         emergencyPrayerSwitching = false;
     }
 
-    // ===== ENHANCED PRAYER SYSTEM: Multi-Threat Prayer Calculation =====
-    private boolean multipleNPCsAttackingThisTick()
-    {
-        List<InfernoNPC> attackingThisTick = attacksByTick.get(1);
-        return attackingThisTick != null && attackingThisTick.size() > 1;
-    }
-
-    private Prayer calculateCombinedThreatPrayer()
-    {
-        List<InfernoNPC> attackingThisTick = attacksByTick.get(1);
-        if (attackingThisTick == null || attackingThisTick.isEmpty())
-        {
-            return null;
-        }
-
-        // Calculate total damage for each prayer type
-        int meleeDamage = 0, rangedDamage = 0, magicDamage = 0;
-
-        for (InfernoNPC npc : attackingThisTick)
-        {
-            InfernoNPC.Attack attackType = npc.getNextAttack();
-            int damage = getMaxDamage(npc.getType());
-
-            switch (attackType)
-            {
-                case MELEE:
-                    meleeDamage += damage;
-                    break;
-                case RANGED:
-                    rangedDamage += damage;
-                    break;
-                case MAGIC:
-                    magicDamage += damage;
-                    break;
-            }
-        }
-
-        // Return prayer that blocks the most damage
-        if (meleeDamage >= rangedDamage && meleeDamage >= magicDamage)
-        {
-            return Prayer.PROTECT_FROM_MELEE;
-        }
-        else if (rangedDamage >= magicDamage)
-        {
-            return Prayer.PROTECT_FROM_MISSILES;
-        }
-        else
-        {
-            return Prayer.PROTECT_FROM_MAGIC;
-        }
-    }
-    // =====================================================================
-
     // Add a helper to translate Prayer enum to string
     private String toRecommendationString(Prayer prayer)
     {
@@ -942,6 +1038,23 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         }
     }
 
+    @Subscribe
+    private void onBeforeRender(BeforeRender event)
+    {
+        if (!isInInferno())
+        {
+            return;
+        }
+
+        tileProjection.nextFrame();
+        npcGeometry.nextFrame();
+
+        if (runLog.isOpen())
+        {
+            updateRunLogSafespot();
+        }
+    }
+
     @Subscribe
     private void onNpcSpawned(NpcSpawned event)
     {
@@ -950,6 +1063,9 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             return;
         }
 
+        obstacles.spawned(event.getNpc());
+        replayRecorder.npcSpawned(event.getNpc());
+
         final int npcId = event.getNpc().getId();
 
         if (npcId == NpcID.ANCESTRAL_GLYPH)
@@ -968,9 +1084,9 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         switch (infernoNPCType)
         {
             case BLOB:
-                // Blobs need to be added to the end of the list because the prayer for their detection tick
+                // Blobs are kept at the end of the registry because the prayer for their detection tick
                 // will be based on the upcoming attacks of other NPC's
-                infernoNpcs.add(new InfernoNPC(event.getNpc()));
+                npcRegistry.add(new InfernoNPC(event.getNpc(), collisionMap));
                 return;
             case MAGE:
                 if (zuk != null && spawnTimerInfoBox != null)
@@ -1003,18 +1119,15 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
                 finalPhase = true;
                 ticksSinceFinalPhase = 1;
                 finalPhaseTick = true;
-                for (InfernoNPC infernoNPC : infernoNpcs)
+                for (InfernoNPC infernoNPC : npcRegistry.getAll(InfernoNPC.Type.ZUK))
                 {
-                    if (infernoNPC.getType() == InfernoNPC.Type.ZUK)
-                    {
-                        infernoNPC.setTicksTillNextAttack(-1);
-                    }
+                    infernoNPC.setTicksTillNextAttack(-1);
                 }
                 log.debug("[INFERNO] Final phase detected!");
                 break;
         }
 
-        infernoNpcs.add(0, new InfernoNPC(event.getNpc()));
+        npcRegistry.add(new InfernoNPC(event.getNpc(), collisionMap));
     }
 
     @Subscribe
@@ -1025,6 +1138,9 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             return;
         }
 
+        obstacles.despawned(event.getNpc());
+        replayRecorder.npcDespawned(event.getNpc());
+
         int npcId = event.getNpc().getId();
 
         switch (npcId)
@@ -1046,7 +1162,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
                 break;
         }
 
-        infernoNpcs.removeIf(infernoNPC -> infernoNPC.getNpc() == event.getNpc());
+        npcRegistry.remove(event.getNpc());
     }
 
     @Subscribe
@@ -1064,14 +1180,16 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             if (ArrayUtils.contains(InfernoNPC.Type.NIBBLER.getNpcIds(), npc.getId())
                     && animId == 7576)
             {
-                infernoNpcs.removeIf(infernoNPC -> infernoNPC.getNpc() == npc);
+                npcRegistry.remove(npc);
+                replayRecorder.npcRemoved(npc);
             }
 
             if (config.indicateBlobDeathLocation() && InfernoNPC.Type.typeFromId(npc.getId()) == InfernoNPC.Type.BLOB && animId == InfernoBlobDeathSpot.BLOB_DEATH_ANIMATION)
             {
                 // Remove from list so the ticks overlay doesn't compete
                 // with the tile overlay.
-                infernoNpcs.removeIf(infernoNPC -> infernoNPC.getNpc() == npc);
+                npcRegistry.remove(npc);
+                replayRecorder.npcRemoved(npc);
                 blobDeathSpots.add(new InfernoBlobDeathSpot(npc.getLocalLocation()));
             }
         }
@@ -1087,7 +1205,11 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
 
         if (!isInInferno())
         {
-            infernoNpcs.clear();
+            npcRegistry.clear();
+            renderPlan.clear();
+            npcGeometry.clear();
+            obstacles.clear();
+            attackGroups = AttackGroupsSnapshot.EMPTY;
 
             currentWaveNumber = -1;
 
@@ -1096,6 +1218,9 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             overlayManager.remove(jadOverlay);
             overlayManager.remove(prayerOverlay);
             overlayManager.remove(attackTimerOverlay);
+            overlayManager.remove(timingOverlay);
+            replayRecorder.stop();
+            runLog.stop();
 
             zukShield = null;
             zuk = null;
@@ -1109,9 +1234,15 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         }
         else if (currentWaveNumber == -1)
         {
-            infernoNpcs.clear();
+            npcRegistry.clear();
+            obstacles.clear();
+            attackGroups = AttackGroupsSnapshot.EMPTY;
+            collisionMap.refresh(client.getTopLevelWorldView());
+            safespotInputs.invalidate();
+            centralNibblerInputs.invalidate();
 
             currentWaveNumber = 1;
+            predictionTracker.reset();
 
             overlayManager.add(infernoOverlay);
             overlayManager.add(jadOverlay);
@@ -1122,6 +1253,21 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             {
                 overlayManager.add(waveOverlay);
             }
+
+            if (config.stageTimingOverlay())
+            {
+                overlayManager.add(timingOverlay);
+            }
+
+            if (config.recordReplays())
+            {
+                replayRecorder.start(getReplayDirectory());
+            }
+
+            if (config.writeRunLog())
+            {
+                runLog.start(getRunLogDirectory());
+            }
         }
     }
 
@@ -1133,13 +1279,27 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             return;
         }
 
-        String message = event.getMessage();
+        final int waveNumber = parseWaveNumber(event.getMessage());
+
+        if (waveNumber != -1)
+        {
+            replayRecorder.waveMessage(event.getMessage());
+            currentWaveNumber = waveNumber;
+        }
+    }
 
-        if (event.getMessage().contains("Wave:"))
+    /**
+     * @return the wave number of a wave game message, or -1 if the message isn't one
+     */
+    static int parseWaveNumber(String message)
+    {
+        if (!message.contains("Wave:"))
         {
-            message = message.substring(message.indexOf(": ") + 2);
-            currentWaveNumber = Integer.parseInt(message.substring(0, message.indexOf('<')));
+            return -1;
         }
+
+        message = message.substring(message.indexOf(": ") + 2);
+        return Integer.parseInt(message.substring(0, message.indexOf('<')));
     }
 
     private boolean isInInferno()
@@ -1165,7 +1325,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
 
     private void calculateUpcomingAttacks()
     {
-        for (InfernoNPC infernoNPC : infernoNpcs)
+        for (InfernoNPC infernoNPC : npcRegistry.getAll())
         {
             infernoNPC.gameTick(client, lastLocation, finalPhase, ticksSinceFinalPhase);
 
@@ -1175,6 +1335,8 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
                 zukShieldCornerTicks = 0;
             }
 
+            predictionTracker.record(infernoNPC);
+
             if (infernoNPC.getType() == InfernoNPC.Type.RANGER || infernoNPC.getType() == InfernoNPC.Type.MAGE)
             {
                 if (infernoNPC.getNpc().isDead())
@@ -1184,72 +1346,9 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             }
 
             // Map all upcoming attacks and their priority + determine which NPC is about to attack next
-            if (infernoNPC.getTicksTillNextAttack() > 0 && isPrayerHelper(infernoNPC)
-                    && (infernoNPC.getNextAttack() != InfernoNPC.Attack.UNKNOWN
-                    || (config.indicateBlobDetectionTick() && infernoNPC.getType() == InfernoNPC.Type.BLOB
-                    && infernoNPC.getTicksTillNextAttack() >= 4)))
+            if (isPrayerHelper(infernoNPC))
             {
-                upcomingAttacks.computeIfAbsent(infernoNPC.getTicksTillNextAttack(), k -> new HashMap<>());
-
-                if (config.indicateBlobDetectionTick() && infernoNPC.getType() == InfernoNPC.Type.BLOB
-                        && infernoNPC.getTicksTillNextAttack() >= 4)
-                {
-                    upcomingAttacks.computeIfAbsent(infernoNPC.getTicksTillNextAttack() - 3, k -> new HashMap<>());
-                    upcomingAttacks.computeIfAbsent(infernoNPC.getTicksTillNextAttack() - 4, k -> new HashMap<>());
-
-                    // If there's already a magic attack on the detection tick, group them
-                    if (upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).containsKey(InfernoNPC.Attack.MAGIC))
-                    {
-                        if (upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).get(InfernoNPC.Attack.MAGIC) > InfernoNPC.Type.BLOB.getPriority())
-                        {
-                            upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).put(InfernoNPC.Attack.MAGIC, InfernoNPC.Type.BLOB.getPriority());
-                        }
-                    }
-                    // If there's already a ranged attack on the detection tick, group them
-                    else if (upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).containsKey(InfernoNPC.Attack.RANGED))
-                    {
-                        if (upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).get(InfernoNPC.Attack.RANGED) > InfernoNPC.Type.BLOB.getPriority())
-                        {
-                            upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).put(InfernoNPC.Attack.RANGED, InfernoNPC.Type.BLOB.getPriority());
-                        }
-                    }
-                    // If there's going to be a magic attack on the blob attack tick, pray range on the detect tick so magic is prayed on the attack tick
-                    else if (upcomingAttacks.get(infernoNPC.getTicksTillNextAttack()).containsKey(InfernoNPC.Attack.MAGIC)
-                            || upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 4).containsKey(InfernoNPC.Attack.MAGIC))
-                    {
-                        if (!upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).containsKey(InfernoNPC.Attack.RANGED)
-                                || upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).get(InfernoNPC.Attack.RANGED) > InfernoNPC.Type.BLOB.getPriority())
-                        {
-                            upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).put(InfernoNPC.Attack.RANGED, InfernoNPC.Type.BLOB.getPriority());
-                        }
-                    }
-                    // If there's going to be a ranged attack on the blob attack tick, pray magic on the detect tick so range is prayed on the attack tick
-                    else if (upcomingAttacks.get(infernoNPC.getTicksTillNextAttack()).containsKey(InfernoNPC.Attack.RANGED)
-                            || upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 4).containsKey(InfernoNPC.Attack.RANGED))
-                    {
-                        if (!upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).containsKey(InfernoNPC.Attack.MAGIC)
-                                || upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).get(InfernoNPC.Attack.MAGIC) > InfernoNPC.Type.BLOB.getPriority())
-                        {
-                            upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).put(InfernoNPC.Attack.MAGIC, InfernoNPC.Type.BLOB.getPriority());
-                        }
-                    }
-                    // If there's no magic or ranged attack on the detection tick, create a magic pray blob
-                    else
-                    {
-                        upcomingAttacks.get(infernoNPC.getTicksTillNextAttack() - 3).put(InfernoNPC.Attack.MAGIC, InfernoNPC.Type.BLOB.getPriority());
-                    }
-                }
-                else
-                {
-                    final InfernoNPC.Attack attack = infernoNPC.getNextAttack();
-                    final int priority = infernoNPC.getType().getPriority();
-
-                    if (!upcomingAttacks.get(infernoNPC.getTicksTillNextAttack()).containsKey(attack)
-                            || upcomingAttacks.get(infernoNPC.getTicksTillNextAttack()).get(attack) > priority)
-                    {
-                        upcomingAttacks.get(infernoNPC.getTicksTillNextAttack()).put(attack, priority);
-                    }
-                }
+                upcomingAttacks.add(infernoNPC, config.indicateBlobDetectionTick());
             }
         }
     }
@@ -1259,24 +1358,7 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         if (config.prayerDisplayMode() == InfernoPrayerDisplayMode.PRAYER_TAB
                 || config.prayerDisplayMode() == InfernoPrayerDisplayMode.BOTH)
         {
-            int closestTick = 999;
-            int closestPriority = 999;
-
-            for (Integer tick : upcomingAttacks.keySet())
-            {
-                final Map<InfernoNPC.Attack, Integer> attackPriority = upcomingAttacks.get(tick);
-
-                for (InfernoNPC.Attack currentAttack : attackPriority.keySet())
-                {
-                    final int currentPriority = attackPriority.get(currentAttack);
-                    if (tick < closestTick || (tick == closestTick && currentPriority < closestPriority))
-                    {
-                        closestAttack = currentAttack;
-                        closestPriority = currentPriority;
-                        closestTick = tick;
-                    }
-                }
-            }
+            closestAttack = upcomingAttacks.getClosestAttack();
         }
     }
 
@@ -1284,129 +1366,26 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
 
     private void calculateSafespots()
     {
+        safespotTick = client.getTickCount();
+
         if (currentWaveNumber < 69)
         {
-            if (config.safespotDisplayMode() != InfernoSafespotDisplayMode.OFF)
-            {
-                int checkSize = (int) Math.floor(config.safespotsCheckSize() / 2.0);
+            final int checkSize = (int) Math.floor(config.safespotsCheckSize() / 2.0);
+            final int parallelThreshold = config.parallelSafespots() ? config.parallelSafespotsThreshold() : -1;
 
-                for (int x = -checkSize; x <= checkSize; x++)
-                {
-                    for (int y = -checkSize; y <= checkSize; y++)
-                    {
-                        final WorldPoint checkLoc = client.getLocalPlayer().getWorldLocation().dx(x).dy(y);
+            final InfernoTickSnapshot snapshot = safespotWorker.acquireSnapshot();
+            snapshot.fill(safespotTick, client.getLocalPlayer().getWorldLocation(), checkSize, config.safespotDisplayMode(),
+                    parallelThreshold, collisionMap, obstacles, npcRegistry.getAll(), this::isNormalSafespots);
+            safespotWorker.submit(snapshot);
+            return;
+        }
 
-                        if (obstacles.contains(checkLoc))
-                        {
-                            continue;
-                        }
+        // Zuk safespots follow the shield's movement, which is kept on the client thread
+        final WorldView worldView = client.getTopLevelWorldView();
+        final InfernoSafespotGrid safespotGrid = safespotWorker.acquireGrid();
+        safespotGrid.reset(worldView.getBaseX(), worldView.getBaseY(), worldView.getPlane(), safespotTick);
 
-                        for (InfernoNPC infernoNPC : infernoNpcs)
-                        {
-                            if (!isNormalSafespots(infernoNPC))
-                            {
-                                continue;
-                            }
-
-                            if (!safeSpotMap.containsKey(checkLoc))
-                            {
-                                safeSpotMap.put(checkLoc, 0);
-                            }
-
-                            if (infernoNPC.canAttack(client, checkLoc)
-                                    || infernoNPC.canMoveToAttack(client, checkLoc, obstacles))
-                            {
-                                if (infernoNPC.getType().getDefaultAttack() == InfernoNPC.Attack.MELEE)
-                                {
-                                    if (safeSpotMap.get(checkLoc) == 0)
-                                    {
-                                        safeSpotMap.put(checkLoc, 1);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 2)
-                                    {
-                                        safeSpotMap.put(checkLoc, 4);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 3)
-                                    {
-                                        safeSpotMap.put(checkLoc, 5);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 6)
-                                    {
-                                        safeSpotMap.put(checkLoc, 7);
-                                    }
-                                }
-
-                                if (infernoNPC.getType().getDefaultAttack() == InfernoNPC.Attack.MAGIC
-                                        || (infernoNPC.getType() == InfernoNPC.Type.BLOB
-                                        && safeSpotMap.get(checkLoc) != 2 && safeSpotMap.get(checkLoc) != 4))
-                                {
-                                    if (safeSpotMap.get(checkLoc) == 0)
-                                    {
-                                        safeSpotMap.put(checkLoc, 3);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 1)
-                                    {
-                                        safeSpotMap.put(checkLoc, 5);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 2)
-                                    {
-                                        safeSpotMap.put(checkLoc, 6);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 5)
-                                    {
-                                        safeSpotMap.put(checkLoc, 7);
-                                    }
-                                }
-
-                                if (infernoNPC.getType().getDefaultAttack() == InfernoNPC.Attack.RANGED
-                                        || (infernoNPC.getType() == InfernoNPC.Type.BLOB
-                                        && safeSpotMap.get(checkLoc) != 3 && safeSpotMap.get(checkLoc) != 5))
-                                {
-                                    if (safeSpotMap.get(checkLoc) == 0)
-                                    {
-                                        safeSpotMap.put(checkLoc, 2);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 1)
-                                    {
-                                        safeSpotMap.put(checkLoc, 4);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 3)
-                                    {
-                                        safeSpotMap.put(checkLoc, 6);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 4)
-                                    {
-                                        safeSpotMap.put(checkLoc, 7);
-                                    }
-                                }
-
-                                if (infernoNPC.getType() == InfernoNPC.Type.JAD
-                                        && infernoNPC.getNpc().getWorldArea().isInMeleeDistance(checkLoc))
-                                {
-                                    if (safeSpotMap.get(checkLoc) == 0)
-                                    {
-                                        safeSpotMap.put(checkLoc, 1);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 2)
-                                    {
-                                        safeSpotMap.put(checkLoc, 4);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 3)
-                                    {
-                                        safeSpotMap.put(checkLoc, 5);
-                                    }
-                                    else if (safeSpotMap.get(checkLoc) == 6)
-                                    {
-                                        safeSpotMap.put(checkLoc, 7);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        else if (currentWaveNumber == 69 && zukShield != null)
+        if (currentWaveNumber == 69 && zukShield != null)
         {
             final WorldPoint zukShieldCurrentPosition = zukShield.getWorldLocation();
 
@@ -1461,27 +1440,34 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
                 if ((finalPhase && config.safespotsZukShieldAfterHealers() == InfernoZukShieldDisplayMode.LIVE)
                         || (!finalPhase && config.safespotsZukShieldBeforeHealers() == InfernoZukShieldDisplayMode.LIVE))
                 {
-                    drawZukSafespot(zukShield.getWorldLocation().getX(), zukShield.getWorldLocation().getY(), 0);
+                    drawZukSafespot(safespotGrid, zukShield.getWorldLocation().getX(), zukShield.getWorldLocation().getY(), 0);
                 }
 
                 if ((finalPhase && config.safespotsZukShieldAfterHealers() == InfernoZukShieldDisplayMode.LIVEPLUSPREDICT)
                         || (!finalPhase && config.safespotsZukShieldBeforeHealers() == InfernoZukShieldDisplayMode.LIVEPLUSPREDICT))
                 {
                     //draw the normal live safespot
-                    drawZukSafespot(zukShield.getWorldLocation().getX(), zukShield.getWorldLocation().getY(), 0);
+                    drawZukSafespot(safespotGrid, zukShield.getWorldLocation().getX(), zukShield.getWorldLocation().getY(), 0);
 
-                    drawZukPredictedSafespot();
+                    drawZukPredictedSafespot(safespotGrid);
                 }
                 else if ((finalPhase && config.safespotsZukShieldAfterHealers() == InfernoZukShieldDisplayMode.PREDICT)
                         || (!finalPhase && config.safespotsZukShieldBeforeHealers() == InfernoZukShieldDisplayMode.PREDICT))
                 {
-                    drawZukPredictedSafespot();
+                    drawZukPredictedSafespot(safespotGrid);
                 }
             }
         }
+
+        if (config.safespotDisplayMode() == InfernoSafespotDisplayMode.AREA)
+        {
+            safespotGrid.buildAreas();
+        }
+
+        safespotWorker.publish(safespotGrid);
     }
 
-    private void drawZukPredictedSafespot()
+    private void drawZukPredictedSafespot(InfernoSafespotGrid safespotGrid)
     {
         final WorldPoint zukShieldCurrentPosition = zukShield.getWorldLocation();
         //only do this if both xcoords defined.
@@ -1490,117 +1476,228 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
             int nextShieldXCoord = zukShieldCurrentPosition.getX();
 
             //calculate the next zuk shield position
-            for (InfernoNPC infernoNPC : infernoNpcs)
+            for (InfernoNPC infernoNPC : npcRegistry.getAll(InfernoNPC.Type.ZUK))
             {
-                if (infernoNPC.getType() == InfernoNPC.Type.ZUK)
+                int ticksTilZukAttack = finalPhase ? infernoNPC.getTicksTillNextAttack() : infernoNPC.getTicksTillNextAttack() - 1;
+
+                if (ticksTilZukAttack < 1)
+                {
+                    if (finalPhase)
+                    {
+                        //if ticksTilZukAttack < 1 and finalPhase, must be due to finalPhase. don't render predicted safepot until next attack.
+                        return;
+                    }
+                    else
+                    {
+                        //safe to start to render the next safespot
+                        ticksTilZukAttack = 10;
+                    }
+                }
+
+                //if zuk shield moving in positive direction
+                if (zukShieldLastNonZeroDelta > 0)
                 {
-                    int ticksTilZukAttack = finalPhase ? infernoNPC.getTicksTillNextAttack() : infernoNPC.getTicksTillNextAttack() - 1;
+                    nextShieldXCoord += ticksTilZukAttack;
 
-                    if (ticksTilZukAttack < 1)
+                    //nextShieldPosition appears to be past the rightmost spot, must adjust
+                    if (nextShieldXCoord > zukShieldPositiveXCoord)
                     {
-                        if (finalPhase)
+                        //reduce by number of ticks spent in corner
+                        nextShieldXCoord -= zukShieldTicksLeftInCorner;
+
+                        //nextShieldPosition is LT or equal to the rightmost spot
+                        if (nextShieldXCoord <= zukShieldPositiveXCoord)
                         {
-                            //if ticksTilZukAttack < 1 and finalPhase, must be due to finalPhase. don't render predicted safepot until next attack.
-                            return;
+                            //shield should be at that spot
+                            nextShieldXCoord = zukShieldPositiveXCoord;
                         }
                         else
                         {
-                            //safe to start to render the next safespot
-                            ticksTilZukAttack = 10;
+                            //nextShieldPosition is right of the rightmost spot still
+                            nextShieldXCoord = zukShieldPositiveXCoord - nextShieldXCoord + zukShieldPositiveXCoord;
                         }
                     }
+                }
+                else
+                {
+                    //moving in negative direction
+                    nextShieldXCoord -= ticksTilZukAttack;
 
-                    //if zuk shield moving in positive direction
-                    if (zukShieldLastNonZeroDelta > 0)
+                    //nextShieldPosition appears to be past the leftmost spot, must adjust
+                    if (nextShieldXCoord < zukShieldNegativeXCoord)
                     {
-                        nextShieldXCoord += ticksTilZukAttack;
+                        //add by number of ticks spent in corner
+                        nextShieldXCoord += zukShieldTicksLeftInCorner;
 
-                        //nextShieldPosition appears to be past the rightmost spot, must adjust
-                        if (nextShieldXCoord > zukShieldPositiveXCoord)
+                        //nextShieldPosition is GT or equal to the leftmost spot
+                        if (nextShieldXCoord >= zukShieldNegativeXCoord)
                         {
-                            //reduce by number of ticks spent in corner
-                            nextShieldXCoord -= zukShieldTicksLeftInCorner;
-
-                            //nextShieldPosition is LT or equal to the rightmost spot
-                            if (nextShieldXCoord <= zukShieldPositiveXCoord)
-                            {
-                                //shield should be at that spot
-                                nextShieldXCoord = zukShieldPositiveXCoord;
-                            }
-                            else
-                            {
-                                //nextShieldPosition is right of the rightmost spot still
-                                nextShieldXCoord = zukShieldPositiveXCoord - nextShieldXCoord + zukShieldPositiveXCoord;
-                            }
+                            //shield should be at that spot
+                            nextShieldXCoord = zukShieldNegativeXCoord;
                         }
-                    }
-                    else
-                    {
-                        //moving in negative direction
-                        nextShieldXCoord -= ticksTilZukAttack;
-
-                        //nextShieldPosition appears to be past the leftmost spot, must adjust
-                        if (nextShieldXCoord < zukShieldNegativeXCoord)
+                        else
                         {
-                            //add by number of ticks spent in corner
-                            nextShieldXCoord += zukShieldTicksLeftInCorner;
-
-                            //nextShieldPosition is GT or equal to the leftmost spot
-                            if (nextShieldXCoord >= zukShieldNegativeXCoord)
-                            {
-                                //shield should be at that spot
-                                nextShieldXCoord = zukShieldNegativeXCoord;
-                            }
-                            else
-                            {
-                                //nextShieldPosition is left of the leftmost spot still
-                                nextShieldXCoord = zukShieldNegativeXCoord - nextShieldXCoord + zukShieldNegativeXCoord;
-                            }
+                            //nextShieldPosition is left of the leftmost spot still
+                            nextShieldXCoord = zukShieldNegativeXCoord - nextShieldXCoord + zukShieldNegativeXCoord;
                         }
                     }
                 }
             }
 
             //draw the predicted safespot
-            drawZukSafespot(nextShieldXCoord, zukShield.getWorldLocation().getY(), 2);
+            drawZukSafespot(safespotGrid, nextShieldXCoord, zukShield.getWorldLocation().getY(), 2);
         }
     }
 
-    private void drawZukSafespot(int xCoord, int yCoord, int colorSafeSpotId)
+    private void drawZukSafespot(InfernoSafespotGrid safespotGrid, int xCoord, int yCoord, int colorSafeSpotId)
     {
         for (int x = xCoord - 1; x <= xCoord + 3; x++)
         {
             for (int y = yCoord - 4; y <= yCoord - 2; y++)
             {
-                safeSpotMap.put(new WorldPoint(x, y, client.getTopLevelWorldView().getPlane()), colorSafeSpotId);
+                safespotGrid.setId(x, y, colorSafeSpotId);
             }
         }
     }
 
-    private void calculateSafespotAreas()
+    /**
+     * @return every tracked NPC, with blobs last
+     */
+    List<InfernoNPC> getInfernoNpcs()
     {
-        if (config.safespotDisplayMode() == InfernoSafespotDisplayMode.AREA)
+        return npcRegistry.getAll();
+    }
+
+    /**
+     * @return the render plan of this tick, rebuilt first if the config or the tracked NPC's changed since
+     */
+    InfernoRenderPlan getRenderPlan()
+    {
+        if (!renderPlan.isCurrent(npcRegistry))
         {
-            for (WorldPoint worldPoint : safeSpotMap.keySet())
-            {
-                if (!safeSpotAreas.containsKey(safeSpotMap.get(worldPoint)))
-                {
-                    safeSpotAreas.put(safeSpotMap.get(worldPoint), new ArrayList<>());
-                }
+            renderPlan.build(this, config, client);
+        }
 
-                safeSpotAreas.get(safeSpotMap.get(worldPoint)).add(worldPoint);
-            }
+        return renderPlan;
+    }
+
+    /**
+     * Safespots are calculated off the client thread, so for up to a tick after they are requested this
+     * returns the grid of an earlier tick, calculated with the NPC's where they were back then. Use
+     * {@link #isSafespotGridCurrent(InfernoSafespotGrid)} to tell the two apart.
+     *
+     * @return the safespot grid of the latest finished calculation
+     */
+    InfernoSafespotGrid getSafespotGrid()
+    {
+        return safespotWorker.getGrid();
+    }
+
+    /**
+     * @return true if the grid was calculated with the inputs of the latest safespot calculation
+     */
+    boolean isSafespotGridCurrent(InfernoSafespotGrid safespotGrid)
+    {
+        return safespotGrid.getTick() == safespotTick;
+    }
+
+    private void recordReplayTick()
+    {
+        final int checkSize = (int) Math.floor(config.safespotsCheckSize() / 2.0);
+        final int parallelThreshold = config.parallelSafespots() ? config.parallelSafespotsThreshold() : -1;
+
+        int options = 0;
+
+        if (config.indicateBlobDetectionTick())
+        {
+            options |= InfernoReplayRecorder.OPTION_BLOB_DETECTION_TICK;
         }
 
-        lastLocation = client.getLocalPlayer().getWorldLocation();
+        if (config.showAttackTimerOverlay())
+        {
+            options |= InfernoReplayRecorder.OPTION_COMBINE_SIMULTANEOUS;
+        }
+
+        if (config.prayerDisplayMode() == InfernoPrayerDisplayMode.PRAYER_TAB
+                || config.prayerDisplayMode() == InfernoPrayerDisplayMode.BOTH)
+        {
+            options |= InfernoReplayRecorder.OPTION_CLOSEST_ATTACK;
+        }
+
+        if (config.offTickMeleeJad())
+        {
+            options |= InfernoReplayRecorder.OPTION_OFF_TICK_MELEE_JAD;
+        }
+
+        replayRecorder.record(client, currentWaveNumber, collisionMap, npcRegistry, checkSize, config.safespotDisplayMode(),
+                parallelThreshold, InfernoReplayRecorder.typeMask(this::isNormalSafespots),
+                InfernoReplayRecorder.typeMask(this::isPrayerHelper), config.simultaneousAttackThreshold(), options);
+    }
+
+    private boolean haveSafespotInputsChanged()
+    {
+        final WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+
+        safespotInputs.begin();
+        safespotInputs.add(currentWaveNumber);
+        safespotInputs.add(playerLocation.getX());
+        safespotInputs.add(playerLocation.getY());
+        safespotInputs.add(playerLocation.getPlane());
+        safespotInputs.add(obstacles.getVersion());
+
+        for (InfernoNPC infernoNPC : npcRegistry.getAll())
+        {
+            safespotInputs.add(infernoNPC.getNpc().getIndex());
+            safespotInputs.add(infernoNPC.getNpc().getWorldArea());
+        }
+
+        // Zuk safespots follow the shield's movement over time, so they are recalculated every tick
+        return safespotInputs.commit() || currentWaveNumber >= 69;
+    }
+
+    /**
+     * The NPC attack caches are cleared every tick and the safespot calculation no longer fills them,
+     * while the overlays expect the player tile to have been checked.
+     */
+    private void cachePlayerTileAttacks()
+    {
+        if (currentWaveNumber >= 69 || config.safespotDisplayMode() == InfernoSafespotDisplayMode.OFF)
+        {
+            return;
+        }
+
+        final WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+
+        if (obstacles.isBlocked(playerLocation.getX(), playerLocation.getY()))
+        {
+            return;
+        }
+
+        for (InfernoNPC infernoNPC : npcRegistry.getAll())
+        {
+            if (isNormalSafespots(infernoNPC))
+            {
+                infernoNPC.canAttack(client, playerLocation);
+            }
+        }
     }
 
-    private void calculateObstacles()
+    private boolean haveCentralNibblerInputsChanged()
     {
-        for (NPC npc : client.getTopLevelWorldView().npcs())
+        final WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+
+        centralNibblerInputs.begin();
+        centralNibblerInputs.add(playerLocation.getX());
+        centralNibblerInputs.add(playerLocation.getY());
+        centralNibblerInputs.add(playerLocation.getPlane());
+
+        for (InfernoNPC infernoNPC : npcRegistry.getAll(InfernoNPC.Type.NIBBLER))
         {
-            obstacles.addAll(npc.getWorldArea().toWorldPointList());
+            centralNibblerInputs.add(infernoNPC.getNpc().getIndex());
+            centralNibblerInputs.add(infernoNPC.getNpc().getWorldArea());
         }
+
+        return centralNibblerInputs.commit();
     }
 
     private void manageBlobDeathLocations()
@@ -1618,20 +1715,16 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
         int bestAmountInArea = 0;
         int bestDistanceToPlayer = 999;
 
-        for (InfernoNPC infernoNPC : infernoNpcs)
-        {
-            if (infernoNPC.getType() != InfernoNPC.Type.NIBBLER)
-            {
-                continue;
-            }
+        final List<InfernoNPC> nibblers = npcRegistry.getAll(InfernoNPC.Type.NIBBLER);
 
+        for (InfernoNPC infernoNPC : nibblers)
+        {
             int amountInArea = 0;
             final int distanceToPlayer = infernoNPC.getNpc().getWorldLocation().distanceTo(client.getLocalPlayer().getWorldLocation());
 
-            for (InfernoNPC checkNpc : infernoNpcs)
+            for (InfernoNPC checkNpc : nibblers)
             {
-                if (checkNpc.getType() != InfernoNPC.Type.NIBBLER
-                        || checkNpc.getNpc().getWorldArea().distanceTo(infernoNPC.getNpc().getWorldArea()) > 1)
+                if (checkNpc.getNpc().getWorldArea().distanceTo(infernoNPC.getNpc().getWorldArea()) > 1)
                 {
                     continue;
                 }
@@ -1778,7 +1871,12 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
 
     boolean isNormalSafespots(InfernoNPC infernoNPC)
     {
-        switch (infernoNPC.getType())
+        return isNormalSafespots(infernoNPC.getType());
+    }
+
+    boolean isNormalSafespots(InfernoNPC.Type type)
+    {
+        switch (type)
         {
             case BAT:
                 return config.safespotsBat();
@@ -1801,7 +1899,12 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
 
     boolean isPrayerHelper(InfernoNPC infernoNPC)
     {
-        switch (infernoNPC.getType())
+        return isPrayerHelper(infernoNPC.getType());
+    }
+
+    boolean isPrayerHelper(InfernoNPC.Type type)
+    {
+        switch (type)
         {
             case BAT:
                 return config.prayerBat();
@@ -1868,17 +1971,17 @@ public class InfernoPlugin extends Plugin implements ExtensionPoint
 
     public boolean hasSimultaneousAttackers()
     {
-        return !simultaneousAttackers.isEmpty();
+        return !attackGroups.getSimultaneousAttackers().isEmpty();
     }
 
     public List<InfernoNPC> getSimultaneousAttackers()
     {
-        return simultaneousAttackers;
+        return attackGroups.getSimultaneousAttackers();
     }
 
     public Map<Integer, List<InfernoNPC>> getAttacksByTick()
     {
-        return attacksByTick;
+        return attackGroups.getAttacksByTick();
     }
     // ================================================================
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Arrays;
+
+/**
+ * Counts, per NPC type, how often the attack timer was right about the tick the next attack cycle started.
+ * Only cycles started by an observed attack animation are counted; timers set without one, such as the
+ * meleer's two tile prediction, are predictions themselves and are scored by the next attack animation.
+ *
+ * An attack cycle starting on the tick the timer runs out is a hit, starting before it is early, and starting
+ * up to {@link #MAX_LATE_TICKS} ticks after it is late. Cycles starting after a longer idle time weren't
+ * predicted and aren't counted.
+ */
+class InfernoPredictionTracker
+{
+	static final int MAX_LATE_TICKS = 3;
+
+	enum Outcome
+	{
+		HIT,
+		EARLY,
+		LATE
+	}
+
+	private static final InfernoNPC.Type[] TYPES = InfernoNPC.Type.values();
+	private static final Outcome[] OUTCOMES = Outcome.values();
+
+	private final int[][] counts = new int[TYPES.length][OUTCOMES.length];
+
+	/**
+	 * Counts the outcome of the NPC's prediction this tick, if its attack cycle started.
+	 */
+	void record(InfernoNPC infernoNPC)
+	{
+		final Outcome outcome = infernoNPC.getPredictionOutcome();
+
+		if (outcome != null)
+		{
+			counts[infernoNPC.getType().ordinal()][outcome.ordinal()]++;
+		}
+	}
+
+	int getCount(InfernoNPC.Type type, Outcome outcome)
+	{
+		return counts[type.ordinal()][outcome.ordinal()];
+	}
+
+	int getTotal(InfernoNPC.Type type)
+	{
+		int total = 0;
+		for (int count : counts[type.ordinal()])
+		{
+			total += count;
+		}
+		return total;
+	}
+
+	void reset()
+	{
+		for (int[] typeCounts : counts)
+		{
+			Arrays.fill(typeCounts, 0);
+		}
+	}
+}
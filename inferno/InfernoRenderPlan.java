@@ -0,0 +1,267 @@
+package net.runelite.client.plugins.inferno;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * What {@link InfernoOverlay} draws on every NPC, decided once per tick instead of once per frame.
+ *
+ * Entries are kept in flat arrays in NPC order: the highlight and indicator flags, the label with its
+ * color (the attack timer, or the dig timer of an idle meleer) and the color of the simultaneous
+ * attack group. Only the screen positions are left to the overlay, since they change with the camera.
+ */
+class InfernoRenderPlan
+{
+	// Convex hull highlights, drawn in bit order
+	static final int HIGHLIGHT_NOT_SAFESPOTTED = 1;
+	static final int HIGHLIGHT_TEMPORARILY_SAFESPOTTED = 1 << 1;
+	static final int HIGHLIGHT_SAFESPOTTED = 1 << 2;
+	static final int HIGHLIGHT_NIBBLER = 1 << 3;
+	static final int HIGHLIGHT_CENTRAL_NIBBLER = 1 << 4;
+	static final int HIGHLIGHT_ACTIVE_HEALER = 1 << 5;
+	static final int HIGHLIGHT_COUNT = 6;
+	static final int HIGHLIGHTS = (1 << HIGHLIGHT_COUNT) - 1;
+
+	static final int INDICATE_POSITION = 1 << 6;
+	static final int TICKS_ON_NPC = 1 << 7;
+	static final int TICKS_ON_ZUK_SHIELD = 1 << 8;
+	static final int DIG_TIMER = 1 << 9;
+	static final int GROUP_INDICATOR = 1 << 10;
+	static final int GROUP_HIGH_PRIORITY = 1 << 11;
+
+	// Group priority above which a warning is drawn next to the group indicator
+	private static final int HIGH_PRIORITY = 80;
+
+	private static final Color[] HIGHLIGHT_COLORS = {
+		Color.RED,
+		Color.YELLOW,
+		Color.GREEN,
+		Color.CYAN,
+		Color.BLUE,
+		Color.CYAN
+	};
+
+	private InfernoNPC[] npcs = new InfernoNPC[16];
+	private int[] flags = new int[16];
+	private String[] labels = new String[16];
+	private int[] labelValues = new int[16];
+	private Color[] labelColors = new Color[16];
+	private Color[] groupColors = new Color[16];
+	private int size;
+
+	private boolean valid;
+	private int registryVersion;
+
+	void build(InfernoPlugin plugin, InfernoConfig config, Client client)
+	{
+		final List<InfernoNPC> infernoNpcs = plugin.getNpcRegistry().getAll();
+		final NPC zukShield = plugin.getZukShield();
+		final WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+		final AttackGroupsSnapshot attackGroups = plugin.getAttackGroups();
+
+		clear();
+		ensureCapacity(infernoNpcs.size());
+
+		for (InfernoNPC infernoNPC : infernoNpcs)
+		{
+			final InfernoNPC.Type type = infernoNPC.getType();
+			final boolean normalSafespots = plugin.isNormalSafespots(infernoNPC);
+			final int ticks = infernoNPC.getTicksTillNextAttack();
+			int npcFlags = 0;
+			String label = null;
+			int labelValue = 0;
+			Color labelColor = null;
+			Color groupColor = null;
+
+			if (config.indicateNonSafespotted() && normalSafespots && infernoNPC.canAttack(client, playerLocation))
+			{
+				npcFlags |= HIGHLIGHT_NOT_SAFESPOTTED;
+			}
+			if (config.indicateTemporarySafespotted() && normalSafespots
+					&& infernoNPC.canMoveToAttack(client, playerLocation, plugin.getObstacles()))
+			{
+				npcFlags |= HIGHLIGHT_TEMPORARILY_SAFESPOTTED;
+			}
+			if (config.indicateSafespotted() && normalSafespots)
+			{
+				npcFlags |= HIGHLIGHT_SAFESPOTTED;
+			}
+			if (type == InfernoNPC.Type.NIBBLER)
+			{
+				final boolean central = config.indicateCentralNibbler() && plugin.getCentralNibbler() == infernoNPC;
+				if (config.indicateNibblers() && !central)
+				{
+					npcFlags |= HIGHLIGHT_NIBBLER;
+				}
+				if (central)
+				{
+					npcFlags |= HIGHLIGHT_CENTRAL_NIBBLER;
+				}
+			}
+			if (((config.indicateActiveHealerJad() && type == InfernoNPC.Type.HEALER_JAD)
+					|| (config.indicateActiveHealerZuk() && type == InfernoNPC.Type.HEALER_ZUK))
+					&& infernoNPC.getNpc().getInteracting() != client.getLocalPlayer())
+			{
+				npcFlags |= HIGHLIGHT_ACTIVE_HEALER;
+			}
+
+			if (plugin.isIndicateNpcPosition(infernoNPC))
+			{
+				npcFlags |= INDICATE_POSITION;
+			}
+
+			if (ticks > 0)
+			{
+				if (plugin.isTicksOnNpc(infernoNPC))
+				{
+					npcFlags |= TICKS_ON_NPC;
+				}
+				if (config.ticksOnNpcZukShield() && type == InfernoNPC.Type.ZUK && zukShield != null)
+				{
+					npcFlags |= TICKS_ON_ZUK_SHIELD;
+				}
+
+				label = String.valueOf(ticks);
+				labelValue = ticks;
+				labelColor = (ticks == 1 || (type == InfernoNPC.Type.BLOB && ticks == 4))
+						? infernoNPC.getNextAttack().getCriticalColor() : infernoNPC.getNextAttack().getNormalColor();
+
+				final AttackGroupsSnapshot.Group group = attackGroups.getGroup(infernoNPC);
+				if (group != null)
+				{
+					npcFlags |= GROUP_INDICATOR;
+					groupColor = group.getColor();
+
+					if (group.getPriority() > HIGH_PRIORITY)
+					{
+						npcFlags |= GROUP_HIGH_PRIORITY;
+					}
+				}
+			}
+			else if (config.ticksOnNpcMeleerDig()
+					&& type == InfernoNPC.Type.MELEE
+					&& infernoNPC.getIdleTicks() >= config.digTimerThreshold()
+					&& ticks == 0) // don't clobber the attack timer
+			{
+				npcFlags |= DIG_TIMER;
+				label = Integer.toString(infernoNPC.getIdleTicks());
+				labelValue = infernoNPC.getIdleTicks();
+				labelColor = infernoNPC.getIdleTicks() < config.digTimerDangerThreshold()
+						? config.getMeleeDigSafeColor() : config.getMeleeDigDangerColor();
+			}
+
+			if (npcFlags == 0)
+			{
+				continue;
+			}
+
+			npcs[size] = infernoNPC;
+			flags[size] = npcFlags;
+			labels[size] = label;
+			labelValues[size] = labelValue;
+			labelColors[size] = labelColor;
+			groupColors[size] = groupColor;
+			size++;
+		}
+
+		registryVersion = plugin.getNpcRegistry().getVersion();
+		valid = true;
+	}
+
+	void clear()
+	{
+		Arrays.fill(npcs, 0, size, null);
+		Arrays.fill(labels, 0, size, null);
+		Arrays.fill(labelColors, 0, size, null);
+		Arrays.fill(groupColors, 0, size, null);
+		size = 0;
+		valid = false;
+	}
+
+	/**
+	 * Forces a rebuild before the plan is used again, such as after a config change.
+	 */
+	void invalidate()
+	{
+		valid = false;
+	}
+
+	/**
+	 * @return true if the plan was built since the last invalidation and for the NPC's currently in the registry
+	 */
+	boolean isCurrent(InfernoNpcRegistry registry)
+	{
+		return valid && registryVersion == registry.getVersion();
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	InfernoNPC getNpc(int entry)
+	{
+		return npcs[entry];
+	}
+
+	int getFlags(int entry)
+	{
+		return flags[entry];
+	}
+
+	/**
+	 * @return the attack timer, or the dig timer if {@link #DIG_TIMER} is set
+	 */
+	String getLabel(int entry)
+	{
+		return labels[entry];
+	}
+
+	/**
+	 * @return the number shown by the label
+	 */
+	int getLabelValue(int entry)
+	{
+		return labelValues[entry];
+	}
+
+	Color getLabelColor(int entry)
+	{
+		return labelColors[entry];
+	}
+
+	/**
+	 * @return the color of the NPC's simultaneous attack group, set with {@link #GROUP_INDICATOR}
+	 */
+	Color getGroupColor(int entry)
+	{
+		return groupColors[entry];
+	}
+
+	/**
+	 * @param highlight the bit index of a highlight flag
+	 */
+	static Color getHighlightColor(int highlight)
+	{
+		return HIGHLIGHT_COLORS[highlight];
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (npcs.length >= capacity)
+		{
+			return;
+		}
+
+		npcs = Arrays.copyOf(npcs, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		labels = Arrays.copyOf(labels, capacity);
+		labelValues = Arrays.copyOf(labelValues, capacity);
+		labelColors = Arrays.copyOf(labelColors, capacity);
+		groupColors = Arrays.copyOf(groupColors, capacity);
+	}
+}
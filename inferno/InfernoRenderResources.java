@@ -0,0 +1,135 @@
+package net.runelite.client.plugins.inferno;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Stroke;
+import java.util.Arrays;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Fonts, strokes and translucent colors used by the overlays, created once and shared, since fonts
+ * and colors are immutable. The overlays ask for them on every frame, often once per tile.
+ *
+ * Lookups happen on the client thread only. {@link #invalidate()} may be called from any thread
+ * and drops the cached instances on the next lookup, so colors of old config values don't pile up.
+ */
+@Singleton
+class InfernoRenderResources
+{
+	private static final String FONT_NAME = "Arial";
+
+	// Fonts are cached per style (plain, bold, italic or both) below this size
+	private static final int MAX_CACHED_FONT_SIZE = 128;
+
+	// Translucent colors, keyed by ARGB in an open addressing table
+	private static final int COLOR_CAPACITY = 512;
+
+	static final Stroke OUTLINE_STROKE = new BasicStroke(2);
+	static final Stroke DASHED_STROKE = new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{9}, 0);
+
+	private final Font[][] fonts = new Font[4][MAX_CACHED_FONT_SIZE];
+	private final int[] colorKeys = new int[COLOR_CAPACITY];
+	private final Color[] colors = new Color[COLOR_CAPACITY];
+	private int colorCount;
+	private volatile boolean stale;
+
+	@Inject
+	InfernoRenderResources()
+	{
+	}
+
+	/**
+	 * @return an Arial font of the style and size
+	 */
+	Font getFont(int style, int size)
+	{
+		validate();
+
+		if (size < 0 || size >= MAX_CACHED_FONT_SIZE || (style & ~(Font.BOLD | Font.ITALIC)) != 0)
+		{
+			return new Font(FONT_NAME, style, size);
+		}
+
+		Font font = fonts[style][size];
+
+		if (font == null)
+		{
+			font = new Font(FONT_NAME, style, size);
+			fonts[style][size] = font;
+		}
+
+		return font;
+	}
+
+	/**
+	 * @return the color with its alpha replaced
+	 */
+	Color withAlpha(Color color, int alpha)
+	{
+		return getColor((color.getRGB() & 0xFFFFFF) | (alpha << 24));
+	}
+
+	/**
+	 * @return the color of the ARGB value
+	 */
+	Color getColor(int argb)
+	{
+		validate();
+
+		if (colorCount >= COLOR_CAPACITY / 2)
+		{
+			clearColors();
+		}
+
+		int slot = (argb * 0x9E3779B9) >>> 23;
+
+		while (colors[slot] != null)
+		{
+			if (colorKeys[slot] == argb)
+			{
+				return colors[slot];
+			}
+
+			slot = (slot + 1) & (COLOR_CAPACITY - 1);
+		}
+
+		final Color color = new Color(argb, true);
+		colorKeys[slot] = argb;
+		colors[slot] = color;
+		colorCount++;
+		return color;
+	}
+
+	/**
+	 * Drops the cached fonts and colors, such as after a config change.
+	 */
+	void invalidate()
+	{
+		stale = true;
+	}
+
+	private void validate()
+	{
+		if (!stale)
+		{
+			return;
+		}
+
+		stale = false;
+
+		for (Font[] styleFonts : fonts)
+		{
+			Arrays.fill(styleFonts, null);
+		}
+
+		clearColors();
+	}
+
+	private void clearColors()
+	{
+		Arrays.fill(colors, null);
+		colorCount = 0;
+	}
+}
@@ -0,0 +1,268 @@
+package net.runelite.client.plugins.inferno;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.runelite.api.Client;
+import net.runelite.api.CollisionData;
+import net.runelite.api.Constants;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.Prayer;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Stand-ins for the client, local player, world view and NPC's, answering from the values of a replayed tick.
+ *
+ * Only what the tick stages read is answered, any other method returns the default value of its type.
+ * NPC's are equal only to themselves, like the client's, so they can key the registry and obstacle index.
+ */
+class InfernoReplayClient
+{
+	@Getter(AccessLevel.PACKAGE)
+	private final Client client;
+	private final Player player;
+	@Getter(AccessLevel.PACKAGE)
+	private final WorldView worldView;
+	private final CollisionData[] collisionMaps = new CollisionData[Constants.MAX_Z];
+
+	private int tick;
+	private int playerX;
+	private int playerY;
+	@Getter(AccessLevel.PACKAGE)
+	private int plane;
+	private int prayers;
+	@Getter(AccessLevel.PACKAGE)
+	private int baseX;
+	@Getter(AccessLevel.PACKAGE)
+	private int baseY;
+	private int[][] flags;
+
+	private final Map<Integer, ReplayedNpc> npcsByIndex = new HashMap<>();
+	// NPC's of the current tick, in the order of the world view
+	@Getter(AccessLevel.PACKAGE)
+	private final List<NPC> npcs = new ArrayList<>();
+
+	/**
+	 * Values of an NPC, answered by its stand-in.
+	 */
+	private static class ReplayedNpc
+	{
+		private final NPC npc;
+		private final int index;
+		private int id;
+		private int x;
+		private int y;
+		private int size;
+		private int plane;
+		private int animation = -1;
+		private boolean dead;
+
+		private ReplayedNpc(int index, int id)
+		{
+			this.index = index;
+			this.id = id;
+			this.npc = stub(NPC.class, (proxy, method, args) ->
+			{
+				switch (method.getName())
+				{
+					case "getIndex":
+						return this.index;
+					case "getId":
+						return this.id;
+					case "getWorldLocation":
+						return new WorldPoint(x, y, plane);
+					case "getWorldArea":
+						return new WorldArea(x, y, size, size, plane);
+					case "getAnimation":
+						return animation;
+					case "isDead":
+						return dead;
+					default:
+						return null;
+				}
+			});
+		}
+	}
+
+	InfernoReplayClient()
+	{
+		player = stub(Player.class, (proxy, method, args) ->
+				"getWorldLocation".equals(method.getName()) ? new WorldPoint(playerX, playerY, plane) : null);
+
+		for (int z = 0; z < collisionMaps.length; z++)
+		{
+			collisionMaps[z] = stub(CollisionData.class, (proxy, method, args) ->
+					"getFlags".equals(method.getName()) ? flags : null);
+		}
+
+		worldView = stub(WorldView.class, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getId":
+					// Top level world view
+					return -1;
+				case "isTopLevel":
+					return true;
+				case "getBaseX":
+					return baseX;
+				case "getBaseY":
+					return baseY;
+				case "getPlane":
+					return plane;
+				case "getSizeX":
+				case "getSizeY":
+					return Constants.SCENE_SIZE;
+				case "getCollisionMaps":
+					return flags == null ? null : collisionMaps;
+				default:
+					return null;
+			}
+		});
+
+		client = stub(Client.class, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getLocalPlayer":
+					return player;
+				case "getTopLevelWorldView":
+					return worldView;
+				case "getTickCount":
+					return tick;
+				case "isPrayerActive":
+					return isPrayerActive((Prayer) args[0]);
+				default:
+					return null;
+			}
+		});
+	}
+
+	/**
+	 * @param prayers a bit per prayer of {@link InfernoReplayRecorder#PRAYERS}
+	 * @param flags the collision flags of the plane, or null if there are none
+	 */
+	void setTick(int tick, int playerX, int playerY, int plane, int prayers, int baseX, int baseY, int[][] flags)
+	{
+		this.tick = tick;
+		this.playerX = playerX;
+		this.playerY = playerY;
+		this.plane = plane;
+		this.prayers = prayers;
+		this.baseX = baseX;
+		this.baseY = baseY;
+		this.flags = flags;
+		npcs.clear();
+	}
+
+	/**
+	 * @return the NPC that spawned at the index, replacing any NPC that was there
+	 */
+	NPC spawn(int index, int id, int x, int y, int size)
+	{
+		final ReplayedNpc replayed = new ReplayedNpc(index, id);
+		replayed.x = x;
+		replayed.y = y;
+		replayed.size = size;
+		replayed.plane = plane;
+		npcsByIndex.put(index, replayed);
+		return replayed.npc;
+	}
+
+	/**
+	 * @return the NPC at the index, or null if there is none
+	 */
+	NPC get(int index)
+	{
+		final ReplayedNpc replayed = npcsByIndex.get(index);
+		return replayed == null ? null : replayed.npc;
+	}
+
+	/**
+	 * @return the NPC that despawned from the index, or null if there was none
+	 */
+	NPC despawn(int index)
+	{
+		final ReplayedNpc replayed = npcsByIndex.remove(index);
+		return replayed == null ? null : replayed.npc;
+	}
+
+	/**
+	 * Updates the NPC at the index, spawning it if it wasn't seen before, and adds it to the NPC's of the tick.
+	 *
+	 * @return the NPC
+	 */
+	NPC update(int index, int id, int x, int y, int size, int animation, boolean dead)
+	{
+		ReplayedNpc replayed = npcsByIndex.get(index);
+
+		if (replayed == null)
+		{
+			spawn(index, id, x, y, size);
+			replayed = npcsByIndex.get(index);
+		}
+
+		replayed.id = id;
+		replayed.x = x;
+		replayed.y = y;
+		replayed.size = size;
+		replayed.plane = plane;
+		replayed.animation = animation;
+		replayed.dead = dead;
+		npcs.add(replayed.npc);
+		return replayed.npc;
+	}
+
+	private boolean isPrayerActive(Prayer prayer)
+	{
+		for (int i = 0; i < InfernoReplayRecorder.PRAYERS.length; i++)
+		{
+			if (InfernoReplayRecorder.PRAYERS[i] == prayer)
+			{
+				return (prayers & 1 << i) != 0;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return a stand-in for the interface that answers with the handler, or the default value of the return type
+	 * if the handler returns null
+	 */
+	private static <T> T stub(Class<T> type, InvocationHandler answers)
+	{
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+				default:
+					break;
+			}
+
+			final Object answer = answers.invoke(proxy, method, args);
+
+			if (answer != null || !method.getReturnType().isPrimitive() || method.getReturnType() == void.class)
+			{
+				return answer;
+			}
+
+			return Array.get(Array.newInstance(method.getReturnType(), 1), 0);
+		}));
+	}
+}
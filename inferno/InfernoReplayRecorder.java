@@ -0,0 +1,408 @@
+package net.runelite.client.plugins.inferno;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.Prayer;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.example.EthanApiPlugin.EthanApiPlugin;
+import net.runelite.client.plugins.inferno.displaymodes.InfernoSafespotDisplayMode;
+
+/**
+ * Records what the tick stages of an Inferno run read from the client, to be replayed without a client
+ * by {@link InfernoReplayer}: the NPC spawns, despawns and wave messages as they happen, and the
+ * player, prayers, collision flags, settings and NPC's of every game tick.
+ *
+ * A recording is a gzipped stream of big-endian values: the {@link #MAGIC} and {@link #VERSION} ints,
+ * followed by records until the end of the stream, each starting with its byte type:
+ * <pre>
+ * SPAWN: int index, int id, int x, int y, int size
+ * DESPAWN: int index
+ * REMOVE: int index (no longer tracked because of a death animation, but still in the scene)
+ * WAVE_MESSAGE: UTF message
+ * TICK:
+ *   int tick, int wave
+ *   int playerX, int playerY, int plane, byte prayers (a bit per prayer of {@link #PRAYERS})
+ *   int baseX, int baseY
+ *   bool flagsChanged, then if set: int width, int height, width * height collision flags (x-major)
+ *   int checkSize, byte displayMode, int parallelThreshold
+ *   int safespotTypes, int prayerTypes (a bit per {@link InfernoNPC.Type} ordinal)
+ *   int simultaneousAttackThreshold, byte options (OPTION_* bits)
+ *   int npcCount, then per NPC in the order of the world view:
+ *     int index, int id, int x, int y, int size, int animation, bool dead,
+ *     byte nextAttack (ordinal, or -1 if the NPC isn't tracked), then if tracked: int ticksTillNextAttack
+ * </pre>
+ * Events are written before the tick they were seen on. Collision flags are only written when they differ from
+ * the flags of the previous tick. The attack timers are the ones the plugin ended up with, to compare the replay to.
+ *
+ * Records are written to pooled buffers on the client thread, which are handed to a background thread
+ * that compresses them into the file.
+ */
+@Slf4j
+class InfernoReplayRecorder
+{
+	static final int MAGIC = 0x494E4652; // INFR
+	static final int VERSION = 3;
+
+	static final int SPAWN = 0;
+	static final int DESPAWN = 1;
+	static final int REMOVE = 2;
+	static final int WAVE_MESSAGE = 3;
+	static final int TICK = 4;
+
+	static final int OPTION_BLOB_DETECTION_TICK = 1;
+	// Simultaneous attacks on the next tick are prayed by their combined max hit
+	static final int OPTION_COMBINE_SIMULTANEOUS = 2;
+	static final int OPTION_CLOSEST_ATTACK = 4;
+	static final int OPTION_OFF_TICK_MELEE_JAD = 8;
+
+	static final Prayer[] PRAYERS = {Prayer.PROTECT_FROM_MELEE, Prayer.PROTECT_FROM_MISSILES, Prayer.PROTECT_FROM_MAGIC};
+
+	private static final InfernoNPC.Type[] TYPES = InfernoNPC.Type.values();
+
+	private final Queue<Frame> freeFrames = new ConcurrentLinkedQueue<>();
+	private ExecutorService writer;
+	private volatile boolean failed;
+
+	// Only accessed from the client thread
+	private Frame frame;
+	private int[][] lastFlags;
+
+	// Only accessed from the writer thread
+	private DataOutputStream out;
+	private File file;
+
+	/**
+	 * Records written on the client thread since the last frame was handed to the writer.
+	 */
+	private static class Frame
+	{
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+		private final DataOutputStream data = new DataOutputStream(bytes);
+	}
+
+	boolean isRecording()
+	{
+		return writer != null && !failed;
+	}
+
+	void start(File directory)
+	{
+		if (writer != null)
+		{
+			return;
+		}
+
+		failed = false;
+		lastFlags = null;
+		frame = acquireFrame();
+		writer = Executors.newSingleThreadExecutor(runnable ->
+		{
+			final Thread thread = new Thread(runnable, "inferno-replays");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		final File file = new File(directory, "inferno-" + System.currentTimeMillis() + ".replay");
+		writer.execute(() -> open(directory, file));
+	}
+
+	void stop()
+	{
+		if (writer == null)
+		{
+			return;
+		}
+
+		// Events since the last tick are kept, the replayer applies them before the end of the stream
+		final Frame last = frame;
+		writer.execute(() -> write(last));
+		writer.execute(this::close);
+		writer.shutdown();
+
+		writer = null;
+		frame = null;
+		lastFlags = null;
+	}
+
+	void npcSpawned(NPC npc)
+	{
+		if (!isRecording())
+		{
+			return;
+		}
+
+		final WorldArea area = npc.getWorldArea();
+
+		try
+		{
+			frame.data.writeByte(SPAWN);
+			frame.data.writeInt(npc.getIndex());
+			frame.data.writeInt(npc.getId());
+			frame.data.writeInt(area.getX());
+			frame.data.writeInt(area.getY());
+			frame.data.writeInt(area.getWidth());
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	void npcDespawned(NPC npc)
+	{
+		writeNpcEvent(DESPAWN, npc);
+	}
+
+	/**
+	 * Records an NPC that is no longer tracked while it stays in the scene, such as after its death animation.
+	 */
+	void npcRemoved(NPC npc)
+	{
+		writeNpcEvent(REMOVE, npc);
+	}
+
+	void waveMessage(String message)
+	{
+		if (!isRecording())
+		{
+			return;
+		}
+
+		try
+		{
+			frame.data.writeByte(WAVE_MESSAGE);
+			frame.data.writeUTF(message);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Records the tick and hands it to the writer together with the events seen since the previous tick.
+	 *
+	 * @param safespotTypes the NPC types that count towards safespots, a bit per type ordinal
+	 * @param prayerTypes the NPC types whose attacks are prayed against, a bit per type ordinal
+	 * @param options the OPTION_* bits of the enabled settings
+	 */
+	void record(Client client, int wave, InfernoCollisionMap collisionMap, InfernoNpcRegistry npcRegistry,
+				int checkSize, InfernoSafespotDisplayMode displayMode, int parallelThreshold,
+				int safespotTypes, int prayerTypes, int simultaneousAttackThreshold, int options)
+	{
+		if (!isRecording())
+		{
+			return;
+		}
+
+		final DataOutputStream data = frame.data;
+		final WorldPoint player = client.getLocalPlayer().getWorldLocation();
+
+		try
+		{
+			data.writeByte(TICK);
+			data.writeInt(client.getTickCount());
+			data.writeInt(wave);
+			data.writeInt(player.getX());
+			data.writeInt(player.getY());
+			data.writeInt(player.getPlane());
+
+			int prayers = 0;
+			for (int i = 0; i < PRAYERS.length; i++)
+			{
+				if (client.isPrayerActive(PRAYERS[i]))
+				{
+					prayers |= 1 << i;
+				}
+			}
+			data.writeByte(prayers);
+
+			data.writeInt(collisionMap.getBaseX());
+			data.writeInt(collisionMap.getBaseY());
+
+			final int[][] flags = collisionMap.getFlags();
+			final boolean flagsChanged = flags != null && flags != lastFlags;
+			data.writeBoolean(flagsChanged);
+
+			if (flagsChanged)
+			{
+				data.writeInt(flags.length);
+				data.writeInt(flags[0].length);
+
+				for (int[] column : flags)
+				{
+					for (int flag : column)
+					{
+						data.writeInt(flag);
+					}
+				}
+
+				lastFlags = flags;
+			}
+
+			data.writeInt(checkSize);
+			data.writeByte(displayMode.ordinal());
+			data.writeInt(parallelThreshold);
+			data.writeInt(safespotTypes);
+			data.writeInt(prayerTypes);
+			data.writeInt(simultaneousAttackThreshold);
+			data.writeByte(options);
+
+			int npcCount = 0;
+			for (NPC npc : client.getTopLevelWorldView().npcs())
+			{
+				npcCount++;
+			}
+			data.writeInt(npcCount);
+
+			for (NPC npc : client.getTopLevelWorldView().npcs())
+			{
+				final WorldArea area = npc.getWorldArea();
+				final InfernoNPC infernoNPC = npcRegistry.get(npc);
+
+				data.writeInt(npc.getIndex());
+				data.writeInt(npc.getId());
+				data.writeInt(area.getX());
+				data.writeInt(area.getY());
+				data.writeInt(area.getWidth());
+				data.writeInt(EthanApiPlugin.getAnimation(npc));
+				data.writeBoolean(npc.isDead());
+
+				if (infernoNPC == null)
+				{
+					data.writeByte(-1);
+				}
+				else
+				{
+					data.writeByte(infernoNPC.getNextAttack().ordinal());
+					data.writeInt(infernoNPC.getTicksTillNextAttack());
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		final Frame full = frame;
+		frame = acquireFrame();
+		writer.execute(() -> write(full));
+	}
+
+	/**
+	 * @return the bits of the NPC types that pass the test, by type ordinal
+	 */
+	static int typeMask(Predicate<InfernoNPC.Type> types)
+	{
+		int mask = 0;
+
+		for (InfernoNPC.Type type : TYPES)
+		{
+			if (types.test(type))
+			{
+				mask |= 1 << type.ordinal();
+			}
+		}
+
+		return mask;
+	}
+
+	private void writeNpcEvent(int type, NPC npc)
+	{
+		if (!isRecording())
+		{
+			return;
+		}
+
+		try
+		{
+			frame.data.writeByte(type);
+			frame.data.writeInt(npc.getIndex());
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Frame acquireFrame()
+	{
+		final Frame free = freeFrames.poll();
+		return free != null ? free : new Frame();
+	}
+
+	private void open(File directory, File file)
+	{
+		this.file = file;
+
+		try
+		{
+			Files.createDirectories(directory.toPath());
+			out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file.toPath()))));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to start inferno replay {}", file, e);
+			failed = true;
+			close();
+		}
+	}
+
+	private void write(Frame frame)
+	{
+		try
+		{
+			if (out != null)
+			{
+				frame.bytes.writeTo(out);
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to write inferno replay {}", file, e);
+			failed = true;
+			close();
+		}
+		finally
+		{
+			frame.bytes.reset();
+			freeFrames.add(frame);
+		}
+	}
+
+	private void close()
+	{
+		if (out == null)
+		{
+			return;
+		}
+
+		try
+		{
+			out.close();
+			log.debug("Inferno replay written to {}", file);
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to close inferno replay {}", file, e);
+		}
+
+		out = null;
+	}
+}
@@ -0,0 +1,450 @@
+package net.runelite.client.plugins.inferno;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import net.runelite.api.NPC;
+import net.runelite.api.Prayer;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.inferno.displaymodes.InfernoSafespotDisplayMode;
+
+/**
+ * Replays a recording of {@link InfernoReplayRecorder} through the tick stages of the plugin without a client:
+ * the NPC registry and obstacle index follow the recorded spawns and despawns, every NPC runs
+ * {@link InfernoNPC#gameTick} against a stand-in client, and the upcoming attacks, prayer and safespots
+ * are calculated from the results like the plugin does.
+ *
+ * Prints one CSV line per tick with the number of attack timers that differ from the recorded ones,
+ * the resulting prayers, the time the stages and the safespot calculation took and a checksum of the
+ * safespot grid, so runs can be profiled and compared between builds, followed by the p50, p99 and max times.
+ *
+ * The Zuk wave's safespots and shield corner timer follow the shield on the client thread and aren't replayed,
+ * so Zuk's timer differs from the recorded one after the shield reaches a corner.
+ *
+ * Usage: InfernoReplayer recording [parallelThreshold]
+ */
+public class InfernoReplayer
+{
+	private static final InfernoSafespotDisplayMode[] DISPLAY_MODES = InfernoSafespotDisplayMode.values();
+
+	private final InfernoReplayClient replayClient = new InfernoReplayClient();
+	private final InfernoCollisionMap collisionMap = new InfernoCollisionMap();
+	private final InfernoObstacleIndex obstacles = new InfernoObstacleIndex();
+	private final InfernoNpcRegistry npcRegistry = new InfernoNpcRegistry();
+	private final InfernoPredictionTracker predictionTracker = new InfernoPredictionTracker();
+	private final AttackTimeline upcomingAttacks = new AttackTimeline();
+	private final InfernoSafespotCalculator calculator = new InfernoSafespotCalculator();
+	private final InfernoSafespotGrid grid = new InfernoSafespotGrid();
+	private final InfernoTickSnapshot snapshot = new InfernoTickSnapshot();
+	// -1 to use the recorded threshold
+	private final int parallelThreshold;
+
+	// Time of the tick stages and of the safespot calculation of every replayed tick
+	private final Samples tickSamples = new Samples();
+	private final Samples safespotSamples = new Samples();
+	private int trackedTicks;
+	private int timerMismatches;
+
+	// Recorded NPC's of the current tick with the attack timer the plugin ended up with
+	private NPC[] recordedNpcs = new NPC[16];
+	private int[] recordedAttacks = new int[16];
+	private int[] recordedTicks = new int[16];
+	private int recordedCount;
+
+	// Settings of the current tick
+	private int safespotTypes;
+	private int prayerTypes;
+	private final Predicate<InfernoNPC> safespotNpcs = infernoNPC -> hasType(safespotTypes, infernoNPC);
+	private final Predicate<InfernoNPC> prayedNpcs = infernoNPC -> hasType(prayerTypes, infernoNPC);
+
+	// Plugin state the stages read
+	private int wave = -1;
+	private int[][] flags;
+	private WorldPoint lastLocation = new WorldPoint(0, 0, 0);
+	private boolean finalPhase;
+	private boolean finalPhaseTick;
+	private int ticksSinceFinalPhase;
+
+	/**
+	 * Times of a stage, by replayed tick.
+	 */
+	private static class Samples
+	{
+		private long[] samples = new long[1024];
+		private int count;
+
+		private void add(long nanos)
+		{
+			if (count == samples.length)
+			{
+				samples = Arrays.copyOf(samples, count * 2);
+			}
+			samples[count++] = nanos;
+		}
+
+		/**
+		 * @return the percentile in nanoseconds, or 0 if there are no samples
+		 */
+		private long percentile(int percentile)
+		{
+			if (count == 0)
+			{
+				return 0;
+			}
+
+			Arrays.sort(samples, 0, count);
+			final int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+			return samples[Math.max(0, Math.min(count - 1, index))];
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format(Locale.ROOT, "p50 %.1f us, p99 %.1f us, max %.1f us",
+					percentile(50) / 1000.0, percentile(99) / 1000.0, percentile(100) / 1000.0);
+		}
+	}
+
+	private InfernoReplayer(int parallelThreshold)
+	{
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: InfernoReplayer recording [parallelThreshold]");
+			System.exit(1);
+		}
+
+		final InfernoReplayer replayer = new InfernoReplayer(args.length > 1 ? Integer.parseInt(args[1]) : -1);
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(Paths.get(args[0]))))))
+		{
+			replayer.replay(in, System.out);
+		}
+	}
+
+	private void replay(DataInputStream in, PrintStream out) throws IOException
+	{
+		if (in.readInt() != InfernoReplayRecorder.MAGIC)
+		{
+			throw new IOException("Not an inferno replay");
+		}
+
+		final int version = in.readInt();
+		if (version != InfernoReplayRecorder.VERSION)
+		{
+			throw new IOException("Unsupported inferno replay version " + version);
+		}
+
+		out.println("tick,wave,npcs,tracked,timer_mismatches,closest_attack,prayer,safespot_npcs,tiles,tick_us,safespot_us,checksum");
+
+		while (true)
+		{
+			final int type;
+
+			try
+			{
+				type = in.readByte();
+			}
+			catch (EOFException e)
+			{
+				break;
+			}
+
+			switch (type)
+			{
+				case InfernoReplayRecorder.SPAWN:
+					npcSpawned(replayClient.spawn(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+					break;
+				case InfernoReplayRecorder.DESPAWN:
+					npcDespawned(replayClient.despawn(in.readInt()));
+					break;
+				case InfernoReplayRecorder.REMOVE:
+				{
+					final NPC npc = replayClient.get(in.readInt());
+					if (npc != null)
+					{
+						npcRegistry.remove(npc);
+					}
+					break;
+				}
+				case InfernoReplayRecorder.WAVE_MESSAGE:
+				{
+					final int waveNumber = InfernoPlugin.parseWaveNumber(in.readUTF());
+					if (waveNumber != -1)
+					{
+						wave = waveNumber;
+					}
+					break;
+				}
+				case InfernoReplayRecorder.TICK:
+					replayTick(in, out);
+					break;
+				default:
+					throw new IOException("Unknown inferno replay record " + type);
+			}
+		}
+
+		out.println(String.format(Locale.ROOT, "# %d ticks, %d of %d attack timers differ from the recording",
+				tickSamples.count, timerMismatches, trackedTicks));
+		out.println("# ticks: " + tickSamples);
+		out.println("# safespots: " + safespotSamples);
+
+		for (InfernoNPC.Type type : InfernoNPC.Type.values())
+		{
+			if (predictionTracker.getTotal(type) > 0)
+			{
+				out.println(String.format(Locale.ROOT, "# %s attacks: %d hit, %d early, %d late of %d", type,
+						predictionTracker.getCount(type, InfernoPredictionTracker.Outcome.HIT),
+						predictionTracker.getCount(type, InfernoPredictionTracker.Outcome.EARLY),
+						predictionTracker.getCount(type, InfernoPredictionTracker.Outcome.LATE),
+						predictionTracker.getTotal(type)));
+			}
+		}
+	}
+
+	/**
+	 * Same as the plugin's NPC spawn handling, for the state the tick stages read.
+	 */
+	private void npcSpawned(NPC npc)
+	{
+		obstacles.spawned(npc);
+
+		final InfernoNPC.Type type = InfernoNPC.Type.typeFromId(npc.getId());
+
+		if (type == null)
+		{
+			return;
+		}
+
+		if (type == InfernoNPC.Type.ZUK)
+		{
+			finalPhase = false;
+		}
+		else if (type == InfernoNPC.Type.HEALER_ZUK)
+		{
+			finalPhase = true;
+			ticksSinceFinalPhase = 1;
+			finalPhaseTick = true;
+			for (InfernoNPC infernoNPC : npcRegistry.getAll(InfernoNPC.Type.ZUK))
+			{
+				infernoNPC.setTicksTillNextAttack(-1);
+			}
+		}
+
+		npcRegistry.add(new InfernoNPC(npc, collisionMap, NPC::getAnimation));
+	}
+
+	private void npcDespawned(NPC npc)
+	{
+		if (npc != null)
+		{
+			obstacles.despawned(npc);
+			npcRegistry.remove(npc);
+		}
+	}
+
+	private void replayTick(DataInputStream in, PrintStream out) throws IOException
+	{
+		final int tick = in.readInt();
+		final int recordedWave = in.readInt();
+		final int playerX = in.readInt();
+		final int playerY = in.readInt();
+		final int plane = in.readInt();
+		final int prayers = in.readByte();
+		final int baseX = in.readInt();
+		final int baseY = in.readInt();
+
+		if (in.readBoolean())
+		{
+			flags = new int[in.readInt()][in.readInt()];
+
+			for (int[] column : flags)
+			{
+				for (int y = 0; y < column.length; y++)
+				{
+					column[y] = in.readInt();
+				}
+			}
+		}
+
+		final int checkSize = in.readInt();
+		final InfernoSafespotDisplayMode displayMode = DISPLAY_MODES[in.readByte()];
+		final int recordedThreshold = in.readInt();
+		safespotTypes = in.readInt();
+		prayerTypes = in.readInt();
+		final int simultaneousAttackThreshold = in.readInt();
+		final int options = in.readByte();
+
+		if (wave == -1)
+		{
+			// Recording started without a wave message
+			wave = recordedWave;
+		}
+
+		replayClient.setTick(tick, playerX, playerY, plane, prayers, baseX, baseY, flags);
+
+		final int npcs = in.readInt();
+		recordedCount = 0;
+
+		for (int i = 0; i < npcs; i++)
+		{
+			final NPC npc = replayClient.update(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+					in.readInt(), in.readBoolean());
+			final int nextAttack = in.readByte();
+
+			if (nextAttack == -1)
+			{
+				continue;
+			}
+
+			addRecorded(npc, nextAttack, in.readInt());
+
+			if (npcRegistry.get(npc) == null)
+			{
+				// Tracked before the recording started
+				npcRegistry.add(new InfernoNPC(npc, collisionMap, NPC::getAnimation));
+			}
+		}
+
+		final long start = System.nanoTime();
+
+		collisionMap.refresh(replayClient.getWorldView());
+
+		upcomingAttacks.clear();
+
+		for (InfernoNPC infernoNPC : npcRegistry.getAll())
+		{
+			infernoNPC.gameTick(replayClient.getClient(), lastLocation, finalPhase, ticksSinceFinalPhase);
+			predictionTracker.record(infernoNPC);
+
+			if ((infernoNPC.getType() == InfernoNPC.Type.RANGER || infernoNPC.getType() == InfernoNPC.Type.MAGE)
+					&& infernoNPC.getNpc().isDead())
+			{
+				continue;
+			}
+
+			if (prayedNpcs.test(infernoNPC))
+			{
+				upcomingAttacks.add(infernoNPC, (options & InfernoReplayRecorder.OPTION_BLOB_DETECTION_TICK) != 0);
+			}
+		}
+
+		final AttackGroupsSnapshot attackGroups = AttackGroupsSnapshot.build(npcRegistry.getAll(), prayedNpcs, simultaneousAttackThreshold);
+		final InfernoNPC.Attack closestAttack = (options & InfernoReplayRecorder.OPTION_CLOSEST_ATTACK) != 0
+				? upcomingAttacks.getClosestAttack() : null;
+		Prayer prayer = attackGroups.getNextTickPrayer(upcomingAttacks, (options & InfernoReplayRecorder.OPTION_COMBINE_SIMULTANEOUS) != 0);
+
+		if ((options & InfernoReplayRecorder.OPTION_OFF_TICK_MELEE_JAD) != 0 && prayer == null
+				&& npcRegistry.getFirst(InfernoNPC.Type.JAD) != null)
+		{
+			prayer = Prayer.PROTECT_FROM_MELEE;
+		}
+
+		final long safespotStart = System.nanoTime();
+		final boolean calculateSafespots = wave < 69 && collisionMap.getFlags() != null;
+
+		if (calculateSafespots)
+		{
+			snapshot.fill(tick, replayClient.getClient().getLocalPlayer().getWorldLocation(), checkSize, displayMode,
+					parallelThreshold == -1 ? recordedThreshold : parallelThreshold, collisionMap, obstacles,
+					npcRegistry.getAll(), safespotNpcs);
+			calculator.calculate(snapshot, grid);
+		}
+
+		final long safespotEnd = System.nanoTime();
+
+		lastLocation = new WorldPoint(playerX, playerY, plane);
+		obstacles.update(replayClient.getNpcs(), baseX, baseY);
+
+		if (finalPhaseTick)
+		{
+			finalPhaseTick = false;
+		}
+		else if (finalPhase)
+		{
+			ticksSinceFinalPhase++;
+		}
+
+		final long tickNanos = System.nanoTime() - start;
+		tickSamples.add(tickNanos);
+
+		final int mismatches = countTimerMismatches();
+		trackedTicks += recordedCount;
+		timerMismatches += mismatches;
+
+		final String attacks = String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%s,%s", tick, wave, npcs, recordedCount, mismatches,
+				closestAttack == null ? "" : closestAttack.name(), prayer == null ? "" : prayer.name());
+
+		if (!calculateSafespots)
+		{
+			out.println(String.format(Locale.ROOT, "%s,,,%.1f,,", attacks, tickNanos / 1000.0));
+			return;
+		}
+
+		safespotSamples.add(safespotEnd - safespotStart);
+
+		int checksum = 1;
+		for (int i = 0; i < grid.size(); i++)
+		{
+			checksum = 31 * checksum + grid.getX(i);
+			checksum = 31 * checksum + grid.getY(i);
+			checksum = 31 * checksum + grid.getId(i);
+		}
+
+		out.println(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%08x", attacks, snapshot.getNpcCount(), grid.size(),
+				tickNanos / 1000.0, (safespotEnd - safespotStart) / 1000.0, checksum));
+	}
+
+	private void addRecorded(NPC npc, int nextAttack, int ticksTillNextAttack)
+	{
+		if (recordedCount == recordedNpcs.length)
+		{
+			recordedNpcs = Arrays.copyOf(recordedNpcs, recordedCount * 2);
+			recordedAttacks = Arrays.copyOf(recordedAttacks, recordedCount * 2);
+			recordedTicks = Arrays.copyOf(recordedTicks, recordedCount * 2);
+		}
+
+		recordedNpcs[recordedCount] = npc;
+		recordedAttacks[recordedCount] = nextAttack;
+		recordedTicks[recordedCount] = ticksTillNextAttack;
+		recordedCount++;
+	}
+
+	/**
+	 * @return the number of recorded NPC's whose replayed attack timer or next attack differs from the recording
+	 */
+	private int countTimerMismatches()
+	{
+		int mismatches = 0;
+
+		for (int i = 0; i < recordedCount; i++)
+		{
+			final InfernoNPC infernoNPC = npcRegistry.get(recordedNpcs[i]);
+
+			if (infernoNPC == null || infernoNPC.getTicksTillNextAttack() != recordedTicks[i]
+					|| infernoNPC.getNextAttack().ordinal() != recordedAttacks[i])
+			{
+				mismatches++;
+			}
+		}
+
+		return mismatches;
+	}
+
+	private static boolean hasType(int types, InfernoNPC infernoNPC)
+	{
+		return (types & 1 << infernoNPC.getType().ordinal()) != 0;
+	}
+}
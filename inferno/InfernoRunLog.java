@@ -0,0 +1,221 @@
+package net.runelite.client.plugins.inferno;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends the state of every game tick of a run to a memory-mapped file, cheap enough to stay enabled.
+ *
+ * The file is a sequence of fixed-width {@link #RECORD_SIZE} byte big-endian records: one header record, then
+ * per tick a tick record followed by one NPC record per NPC. A record type of 0 marks the end of the log, the
+ * file is extended a region at a time so it ends in unused zeroes.
+ * <pre>
+ * HEADER: byte type, byte version, short recordSize, int magic, long startMillis
+ * TICK:   byte type, byte flags (TICK_*), byte prayers, byte safespotId, short wave, short npcCount,
+ *         int tick, short playerX, short playerY
+ * NPC:    byte type, byte nextAttack, byte ticksTillNextAttack, byte size, short index, short id, short x, short y,
+ *         short animation, short prediction
+ * </pre>
+ * The low nibble of prayers is the recommended prayer (PRAYER_*), the high nibble the ordinal of the closest
+ * attack plus one, or 0 if there is none. The prediction of an NPC is the ordinal of the
+ * {@link InfernoPredictionTracker.Outcome} of an attack cycle that started that tick plus one, or 0 if none started.
+ * The safespot id is the id of the player tile in the safespot grid, -1 if the tile isn't in the grid. Safespots are
+ * calculated off the client thread, so the safespot id of a tick is written as {@link #SAFESPOT_UNKNOWN} and filled
+ * in by {@link #updateSafespotId(int)} once the grid of that tick is published, as long as no later tick was written
+ * yet. It stays unknown if the grid was superseded before it was published.
+ *
+ * Writing a tick only puts values into the mapped buffer; mapping the next region when one is full is the only
+ * allocation.
+ */
+@Slf4j
+class InfernoRunLog
+{
+	static final int MAGIC = 0x49524C47; // IRLG
+	static final int VERSION = 3;
+	static final int RECORD_SIZE = 16;
+
+	static final byte TYPE_END = 0;
+	static final byte TYPE_HEADER = 1;
+	static final byte TYPE_TICK = 2;
+	static final byte TYPE_NPC = 3;
+
+	static final int TICK_SIMULTANEOUS = 1;
+
+	// Safespot id of a tick whose safespot grid wasn't published
+	static final int SAFESPOT_UNKNOWN = Byte.MIN_VALUE;
+
+	static final int PRAYER_NONE = 0;
+	static final int PRAYER_MELEE = 1;
+	static final int PRAYER_MISSILES = 2;
+	static final int PRAYER_MAGIC = 3;
+
+	private static final int REGION_SIZE = 1 << 20;
+
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long regionStart;
+	private File file;
+
+	// Region and position of the last tick record, whose safespot id can still be filled in
+	private MappedByteBuffer lastTickBuffer;
+	private int lastTickPosition;
+
+	boolean isOpen()
+	{
+		return channel != null;
+	}
+
+	void start(File directory)
+	{
+		if (channel != null)
+		{
+			return;
+		}
+
+		file = new File(directory, "run-" + System.currentTimeMillis() + ".runlog");
+
+		try
+		{
+			Files.createDirectories(directory.toPath());
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			regionStart = 0;
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+
+			buffer.put(TYPE_HEADER);
+			buffer.put((byte) VERSION);
+			buffer.putShort((short) RECORD_SIZE);
+			buffer.putInt(MAGIC);
+			buffer.putLong(System.currentTimeMillis());
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to start inferno run log {}", file, e);
+			close();
+		}
+	}
+
+	void stop()
+	{
+		if (channel != null)
+		{
+			log.debug("Inferno run log written to {}", file);
+			close();
+		}
+	}
+
+	/**
+	 * Writes a tick record, to be followed by npcCount calls of {@link #writeNpc}.
+	 */
+	void writeTick(int tick, int wave, int flags, int recommendedPrayer, InfernoNPC.Attack closestAttack,
+				   int safespotId, int playerX, int playerY, int npcCount)
+	{
+		if (!reserve())
+		{
+			return;
+		}
+
+		lastTickBuffer = buffer;
+		lastTickPosition = buffer.position();
+
+		buffer.put(TYPE_TICK);
+		buffer.put((byte) flags);
+		buffer.put((byte) (recommendedPrayer | (closestAttack == null ? 0 : closestAttack.ordinal() + 1) << 4));
+		buffer.put((byte) safespotId);
+		buffer.putShort((short) wave);
+		buffer.putShort((short) npcCount);
+		buffer.putInt(tick);
+		buffer.putShort((short) playerX);
+		buffer.putShort((short) playerY);
+	}
+
+	/**
+	 * Replaces the safespot id of the last tick record.
+	 */
+	void updateSafespotId(int safespotId)
+	{
+		if (lastTickBuffer != null)
+		{
+			lastTickBuffer.put(lastTickPosition + 3, (byte) safespotId);
+		}
+	}
+
+	void writeNpc(int index, int id, int x, int y, int size, int animation, int ticksTillNextAttack, InfernoNPC.Attack nextAttack,
+				  InfernoPredictionTracker.Outcome prediction)
+	{
+		if (!reserve())
+		{
+			return;
+		}
+
+		buffer.put(TYPE_NPC);
+		buffer.put((byte) nextAttack.ordinal());
+		buffer.put((byte) Math.min(ticksTillNextAttack, Byte.MAX_VALUE));
+		buffer.put((byte) size);
+		buffer.putShort((short) index);
+		buffer.putShort((short) id);
+		buffer.putShort((short) x);
+		buffer.putShort((short) y);
+		buffer.putShort((short) animation);
+		buffer.putShort((short) (prediction == null ? 0 : prediction.ordinal() + 1));
+	}
+
+	/**
+	 * Makes sure the mapped region has room for another record.
+	 *
+	 * @return false if the log is closed
+	 */
+	private boolean reserve()
+	{
+		if (channel == null)
+		{
+			return false;
+		}
+
+		if (buffer.remaining() >= RECORD_SIZE)
+		{
+			return true;
+		}
+
+		try
+		{
+			regionStart += buffer.position();
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+			return true;
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to extend inferno run log {}", file, e);
+			close();
+			return false;
+		}
+	}
+
+	private void close()
+	{
+		try
+		{
+			if (buffer != null)
+			{
+				buffer.force();
+			}
+
+			if (channel != null)
+			{
+				channel.close();
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to close inferno run log {}", file, e);
+		}
+
+		channel = null;
+		buffer = null;
+		lastTickBuffer = null;
+	}
+}
@@ -0,0 +1,288 @@
+package net.runelite.client.plugins.inferno;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Reports statistics of run logs written by {@link InfernoRunLog}.
+ *
+ * Logs are streamed a buffer at a time and only fixed-size per-NPC and per-wave state is kept,
+ * so any number of runs can be analysed in constant memory. Prints one CSV line per run, followed
+ * by the duration of every wave over all runs.
+ *
+ * Attack predictions are counted as logged by the {@link InfernoPredictionTracker}. Only logs of the current
+ * {@link InfernoRunLog#VERSION} are read.
+ *
+ * Usage: InfernoRunLogAnalyzer (file | directory)...
+ */
+public class InfernoRunLogAnalyzer
+{
+	private static final int MAX_WAVE = 69;
+	private static final double SECONDS_PER_TICK = 0.6;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(InfernoRunLog.RECORD_SIZE * 4096);
+	private final PrintStream out;
+
+	// Wave durations in ticks over all runs
+	private final long[] waveTicks = new long[MAX_WAVE + 1];
+	private final int[] waveCount = new int[MAX_WAVE + 1];
+	private final int[] waveMin = new int[MAX_WAVE + 1];
+	private final int[] waveMax = new int[MAX_WAVE + 1];
+
+	// State of the run being read
+	private int ticks;
+	private int simultaneousTicks;
+	private int unsafeTicks;
+	// Ticks whose safespot grid wasn't published, neither safe nor unsafe
+	private int unknownSafespotTicks;
+	private int prayerChanges;
+	private int predictionHits;
+	private int predictionsEarly;
+	private int predictionsLate;
+	private int lastPrayer;
+	private int wave;
+	private int waveStartTick;
+	private int tick;
+
+	private InfernoRunLogAnalyzer(PrintStream out)
+	{
+		this.out = out;
+		Arrays.fill(waveMin, Integer.MAX_VALUE);
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length == 0)
+		{
+			System.err.println("Usage: InfernoRunLogAnalyzer (file | directory)...");
+			System.exit(1);
+		}
+
+		final InfernoRunLogAnalyzer analyzer = new InfernoRunLogAnalyzer(System.out);
+		analyzer.out.println("run,ticks,simultaneous_ticks,unsafe_ticks,unknown_safespot_ticks,prayer_changes_per_min,prediction_hits,predictions_early,predictions_late");
+
+		for (String arg : args)
+		{
+			try (Stream<Path> paths = Files.walk(Paths.get(arg)))
+			{
+				final Path[] logs = paths.filter(path -> path.toString().endsWith(".runlog")).sorted().toArray(Path[]::new);
+
+				for (Path log : logs)
+				{
+					analyzer.analyze(log);
+				}
+			}
+		}
+
+		analyzer.printWaves();
+	}
+
+	private void analyze(Path path) throws IOException
+	{
+		startRun();
+
+		try (FileChannel channel = FileChannel.open(path))
+		{
+			buffer.clear();
+			buffer.limit(0);
+
+			if (!readRecord(channel) || buffer.get() != InfernoRunLog.TYPE_HEADER)
+			{
+				System.err.println("Skipping " + path + ", not a run log");
+				return;
+			}
+
+			final int version = buffer.get();
+			final int recordSize = buffer.getShort();
+			final int magic = buffer.getInt();
+			buffer.getLong(); // start time
+
+			if (magic != InfernoRunLog.MAGIC || version != InfernoRunLog.VERSION || recordSize != InfernoRunLog.RECORD_SIZE)
+			{
+				System.err.println("Skipping " + path + ", unsupported run log");
+				return;
+			}
+
+			while (readRecord(channel))
+			{
+				final int start = buffer.position();
+				final byte type = buffer.get();
+
+				if (type == InfernoRunLog.TYPE_END)
+				{
+					break;
+				}
+
+				if (type == InfernoRunLog.TYPE_TICK)
+				{
+					readTick();
+				}
+				else if (type == InfernoRunLog.TYPE_NPC)
+				{
+					readNpc();
+				}
+
+				buffer.position(start + InfernoRunLog.RECORD_SIZE);
+			}
+		}
+
+		endRun(path);
+	}
+
+	/**
+	 * Makes sure a whole record is buffered, reading more of the log if needed.
+	 *
+	 * @return false at the end of the log
+	 */
+	private boolean readRecord(FileChannel channel) throws IOException
+	{
+		if (buffer.remaining() >= InfernoRunLog.RECORD_SIZE)
+		{
+			return true;
+		}
+
+		buffer.compact();
+
+		while (buffer.hasRemaining() && channel.read(buffer) != -1)
+		{
+			// Fill the buffer
+		}
+
+		buffer.flip();
+		return buffer.remaining() >= InfernoRunLog.RECORD_SIZE;
+	}
+
+	private void readTick()
+	{
+		final int flags = buffer.get();
+		final int prayers = buffer.get();
+		final int safespotId = buffer.get();
+		final int tickWave = buffer.getShort();
+		buffer.getShort(); // npc count
+		tick = buffer.getInt();
+
+		if (tickWave != wave)
+		{
+			endWave(tick);
+			wave = tickWave;
+			waveStartTick = tick;
+		}
+
+		final int prayer = prayers & 0xF;
+		if (ticks > 0 && prayer != lastPrayer)
+		{
+			prayerChanges++;
+		}
+		lastPrayer = prayer;
+
+		if ((flags & InfernoRunLog.TICK_SIMULTANEOUS) != 0)
+		{
+			simultaneousTicks++;
+		}
+
+		if (safespotId == InfernoRunLog.SAFESPOT_UNKNOWN)
+		{
+			unknownSafespotTicks++;
+		}
+		else if (safespotId > 0)
+		{
+			unsafeTicks++;
+		}
+
+		ticks++;
+	}
+
+	private void readNpc()
+	{
+		buffer.get(); // next attack
+		buffer.get(); // ticks till next attack
+		buffer.get(); // size
+		buffer.getShort(); // index
+		buffer.getShort(); // id
+		buffer.getShort(); // x
+		buffer.getShort(); // y
+		buffer.getShort(); // animation
+		countPrediction(buffer.getShort());
+	}
+
+	/**
+	 * @param prediction the ordinal of the {@link InfernoPredictionTracker.Outcome} plus one, or 0
+	 */
+	private void countPrediction(int prediction)
+	{
+		if (prediction == InfernoPredictionTracker.Outcome.HIT.ordinal() + 1)
+		{
+			predictionHits++;
+		}
+		else if (prediction == InfernoPredictionTracker.Outcome.EARLY.ordinal() + 1)
+		{
+			predictionsEarly++;
+		}
+		else if (prediction == InfernoPredictionTracker.Outcome.LATE.ordinal() + 1)
+		{
+			predictionsLate++;
+		}
+	}
+
+	private void startRun()
+	{
+		ticks = 0;
+		simultaneousTicks = 0;
+		unsafeTicks = 0;
+		unknownSafespotTicks = 0;
+		prayerChanges = 0;
+		predictionHits = 0;
+		predictionsEarly = 0;
+		predictionsLate = 0;
+		lastPrayer = InfernoRunLog.PRAYER_NONE;
+		wave = 0;
+		waveStartTick = 0;
+		tick = 0;
+	}
+
+	private void endRun(Path path)
+	{
+		endWave(tick + 1);
+
+		final double minutes = ticks * SECONDS_PER_TICK / 60;
+		out.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.2f,%d,%d,%d", path.getFileName(), ticks, simultaneousTicks,
+				unsafeTicks, unknownSafespotTicks, minutes == 0 ? 0 : prayerChanges / minutes, predictionHits, predictionsEarly, predictionsLate));
+	}
+
+	private void endWave(int endTick)
+	{
+		if (wave < 1 || wave > MAX_WAVE)
+		{
+			return;
+		}
+
+		final int duration = endTick - waveStartTick;
+		waveTicks[wave] += duration;
+		waveCount[wave]++;
+		waveMin[wave] = Math.min(waveMin[wave], duration);
+		waveMax[wave] = Math.max(waveMax[wave], duration);
+	}
+
+	private void printWaves()
+	{
+		out.println();
+		out.println("wave,runs,mean_s,min_s,max_s");
+
+		for (int i = 1; i <= MAX_WAVE; i++)
+		{
+			if (waveCount[i] > 0)
+			{
+				out.println(String.format(Locale.ROOT, "%d,%d,%.1f,%.1f,%.1f", i, waveCount[i],
+						waveTicks[i] * SECONDS_PER_TICK / waveCount[i], waveMin[i] * SECONDS_PER_TICK, waveMax[i] * SECONDS_PER_TICK));
+			}
+		}
+	}
+}
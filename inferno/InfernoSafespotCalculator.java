@@ -0,0 +1,244 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import lombok.RequiredArgsConstructor;
+import net.runelite.client.plugins.inferno.displaymodes.InfernoSafespotDisplayMode;
+
+/**
+ * Fills a safespot grid from a tick snapshot without touching the client, so it can run off
+ * the client thread. An instance keeps line of sight results between snapshots that share
+ * the same collision flags, and must only be used by one thread at a time.
+ *
+ * Above the snapshot's parallel threshold, the tiles every NPC can attack are found on a fork/join
+ * pool, one NPC per task, and merged into the grid in NPC order afterwards. The merge is the
+ * only order dependent part (see the blob threat), so both paths give the same grid.
+ */
+class InfernoSafespotCalculator
+{
+	private final NpcReach serialReach = new NpcReach();
+	private NpcReach[] parallelReach = new NpcReach[0];
+
+	void calculate(InfernoTickSnapshot snapshot, InfernoSafespotGrid grid)
+	{
+		grid.reset(snapshot.getBaseX(), snapshot.getBaseY(), snapshot.getPlane(), snapshot.getTick());
+
+		if (snapshot.getDisplayMode() == InfernoSafespotDisplayMode.OFF)
+		{
+			return;
+		}
+
+		final int checkSize = snapshot.getCheckSize();
+		final int sideLength = checkSize * 2 + 1;
+		final int npcCount = snapshot.getNpcCount();
+		final InfernoObstacleIndex obstacles = snapshot.getObstacles();
+		final boolean parallel = snapshot.getParallelThreshold() >= 0
+				&& npcCount > 1 && sideLength * sideLength * npcCount >= snapshot.getParallelThreshold();
+
+		if (parallel)
+		{
+			calculateParallel(snapshot);
+		}
+		else
+		{
+			serialReach.prepare(snapshot);
+		}
+
+		for (int x = snapshot.getPlayerX() - checkSize, tileX = 0; tileX < sideLength; x++, tileX++)
+		{
+			for (int y = snapshot.getPlayerY() - checkSize, tileY = 0; tileY < sideLength; y++, tileY++)
+			{
+				if (obstacles.isBlocked(x, y))
+				{
+					continue;
+				}
+
+				for (int npc = 0; npc < npcCount; npc++)
+				{
+					grid.add(x, y);
+
+					final boolean canAttack = parallel ? parallelReach[npc].canAttack(tileX * sideLength + tileY)
+							: serialReach.canAttackAfterMoving(snapshot, npc, x, y);
+
+					if (canAttack)
+					{
+						grid.addThreat(x, y, calculateThreat(snapshot, npc, x, y, grid.getThreat(x, y)));
+					}
+				}
+			}
+		}
+
+		if (snapshot.getDisplayMode() == InfernoSafespotDisplayMode.AREA)
+		{
+			grid.buildAreas();
+		}
+	}
+
+	private void calculateParallel(InfernoTickSnapshot snapshot)
+	{
+		if (parallelReach.length < snapshot.getNpcCount())
+		{
+			final NpcReach[] reach = Arrays.copyOf(parallelReach, snapshot.getNpcCount());
+			for (int i = parallelReach.length; i < reach.length; i++)
+			{
+				reach[i] = new NpcReach();
+			}
+			parallelReach = reach;
+		}
+
+		ForkJoinPool.commonPool().invoke(new ReachTask(snapshot, 0, snapshot.getNpcCount()));
+	}
+
+	@RequiredArgsConstructor
+	private class ReachTask extends RecursiveAction
+	{
+		private final InfernoTickSnapshot snapshot;
+		private final int from;
+		private final int to;
+
+		@Override
+		protected void compute()
+		{
+			if (to - from == 1)
+			{
+				parallelReach[from].calculate(snapshot, from);
+				return;
+			}
+
+			final int middle = (from + to) >>> 1;
+			invokeAll(new ReachTask(snapshot, from, middle), new ReachTask(snapshot, middle, to));
+		}
+	}
+
+	/**
+	 * Line of sight cache and obstacle view of one NPC being checked, which can't be shared between threads.
+	 */
+	private static class NpcReach
+	{
+		private final InfernoCollisionMap collisionMap = new InfernoCollisionMap();
+
+		// Area the NPC that is moving is excluded from when checking for other NPC's in the way
+		private InfernoObstacleIndex obstacles;
+		private int obstacleExcludeX;
+		private int obstacleExcludeY;
+		private int obstacleExcludeSize;
+		private final InfernoCollisionMap.Obstacles otherNpcs = this::isBlockedByOtherNpc;
+
+		// Tiles of the check area, x-major, that the NPC can attack
+		private long[] reachable = new long[0];
+
+		void prepare(InfernoTickSnapshot snapshot)
+		{
+			collisionMap.refresh(snapshot.getCollisionFlags(), snapshot.getBaseX(), snapshot.getBaseY(), snapshot.getPlane());
+			obstacles = snapshot.getObstacles();
+		}
+
+		void calculate(InfernoTickSnapshot snapshot, int npc)
+		{
+			prepare(snapshot);
+
+			final int checkSize = snapshot.getCheckSize();
+			final int sideLength = checkSize * 2 + 1;
+			final int words = (sideLength * sideLength + 63) >> 6;
+
+			if (reachable.length < words)
+			{
+				reachable = new long[words];
+			}
+			else
+			{
+				Arrays.fill(reachable, 0);
+			}
+
+			for (int x = snapshot.getPlayerX() - checkSize, tileX = 0; tileX < sideLength; x++, tileX++)
+			{
+				for (int y = snapshot.getPlayerY() - checkSize, tileY = 0; tileY < sideLength; y++, tileY++)
+				{
+					if (!obstacles.isBlocked(x, y) && canAttackAfterMoving(snapshot, npc, x, y))
+					{
+						final int tile = tileX * sideLength + tileY;
+						reachable[tile >> 6] |= 1L << tile;
+					}
+				}
+			}
+		}
+
+		boolean canAttack(int tile)
+		{
+			return (reachable[tile >> 6] & (1L << tile)) != 0;
+		}
+
+		/**
+		 * Same as {@link InfernoNPC#canAttack} or {@link InfernoNPC#canMoveToAttack} for the snapshotted NPC.
+		 */
+		boolean canAttackAfterMoving(InfernoTickSnapshot snapshot, int npc, int targetX, int targetY)
+		{
+			final InfernoNPC.Type type = snapshot.getNpcTypes()[npc];
+			final int x = snapshot.getNpcX()[npc];
+			final int y = snapshot.getNpcY()[npc];
+			final int size = snapshot.getNpcSize()[npc];
+
+			if (InfernoNPC.canAttack(collisionMap, type, x, y, size, targetX, targetY))
+			{
+				return true;
+			}
+
+			if (collisionMap.sceneIndex(targetX, targetY) == -1)
+			{
+				// NPC is travelling out of the scene, movement can't be predicted
+				return true;
+			}
+
+			obstacleExcludeX = x;
+			obstacleExcludeY = y;
+			obstacleExcludeSize = size;
+
+			return InfernoNPC.walkToAttack(collisionMap, otherNpcs, type, x, y, size, targetX, targetY);
+		}
+
+		private boolean isBlockedByOtherNpc(int x, int y)
+		{
+			return obstacles.isBlockedExcluding(x, y, obstacleExcludeX, obstacleExcludeY, obstacleExcludeSize);
+		}
+	}
+
+	/**
+	 * Threat flags an attack-capable NPC adds to a tile, given the flags already on it.
+	 */
+	private static int calculateThreat(InfernoTickSnapshot snapshot, int npc, int targetX, int targetY, int currentThreat)
+	{
+		final InfernoNPC.Type type = snapshot.getNpcTypes()[npc];
+
+		switch (type.getDefaultAttack())
+		{
+			case MELEE:
+				return InfernoSafespotGrid.MELEE;
+			case RANGED:
+				return InfernoSafespotGrid.RANGED;
+			case MAGIC:
+				return InfernoSafespotGrid.MAGIC;
+		}
+
+		switch (type)
+		{
+			case BLOB:
+				// Blob attacks with the style that isn't prayed, so it only matters when the tile doesn't require range or magic yet
+				if ((currentThreat & (InfernoSafespotGrid.RANGED | InfernoSafespotGrid.MAGIC)) == 0)
+				{
+					return InfernoSafespotGrid.MAGIC;
+				}
+				break;
+			case JAD:
+				final int size = snapshot.getNpcSize()[npc];
+				if (InfernoNPC.axisDistance(snapshot.getNpcX()[npc], size, targetX)
+						+ InfernoNPC.axisDistance(snapshot.getNpcY()[npc], size, targetY) == 1)
+				{
+					return InfernoSafespotGrid.MELEE;
+				}
+				break;
+		}
+
+		return 0;
+	}
+}
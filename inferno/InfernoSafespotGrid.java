@@ -0,0 +1,279 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Arrays;
+import net.runelite.api.Constants;
+
+/**
+ * Safespot map backed by a fixed-size grid over the loaded scene.
+ *
+ * Each checked tile stores a bitmask of the attack styles that can reach it, which maps onto
+ * the safespot ids used by the overlays (see {@link InfernoPlugin}). The grid and its tile list
+ * are reused every tick, so scanning large check sizes does not allocate.
+ */
+class InfernoSafespotGrid
+{
+	static final int MELEE = 1;
+	static final int RANGED = 2;
+	static final int MAGIC = 4;
+
+	static final int MAX_ID = 7;
+
+	// Outline edges of a tile, in the vertex order of Perspective#getCanvasTilePoly (edge n runs from vertex n to n + 1)
+	static final int OUTLINE_SOUTH = 1;
+	static final int OUTLINE_EAST = 1 << 1;
+	static final int OUTLINE_NORTH = 1 << 2;
+	static final int OUTLINE_WEST = 1 << 3;
+
+	private static final int SIZE = Constants.SCENE_SIZE;
+	private static final byte EMPTY = -1;
+
+	// Threat bitmask -> safespot id
+	private static final int[] THREAT_TO_ID = {0, 1, 2, 4, 3, 5, 6, 7};
+	// Safespot id -> threat bitmask
+	private static final int[] ID_TO_THREAT = {0, MELEE, RANGED, MAGIC, MELEE | RANGED, MELEE | MAGIC, RANGED | MAGIC, MELEE | RANGED | MAGIC};
+
+	private final byte[] threats = new byte[SIZE * SIZE];
+	private final int[] tiles = new int[SIZE * SIZE];
+	private final int[] areaStart = new int[MAX_ID + 2];
+	private final int[] areaNext = new int[MAX_ID + 1];
+	private final byte[] outlines = new byte[SIZE * SIZE];
+	private int tileCount;
+
+	private int baseX;
+	private int baseY;
+	private int plane;
+	// Incremented whenever the grid is reset or its areas are rebuilt
+	private int version;
+	// Game tick the grid was calculated for
+	private int tick = -1;
+
+	InfernoSafespotGrid()
+	{
+		Arrays.fill(threats, EMPTY);
+	}
+
+	/**
+	 * @param tick the game tick the grid is calculated for
+	 */
+	void reset(int baseX, int baseY, int plane, int tick)
+	{
+		for (int i = 0; i < tileCount; i++)
+		{
+			threats[tiles[i]] = EMPTY;
+		}
+
+		tileCount = 0;
+		Arrays.fill(areaStart, 0);
+		version++;
+		this.baseX = baseX;
+		this.baseY = baseY;
+		this.plane = plane;
+		this.tick = tick;
+	}
+
+	/**
+	 * Marks a tile as checked without any threats, unless it was already checked.
+	 */
+	void add(int x, int y)
+	{
+		final int index = index(x, y);
+
+		if (index != -1 && threats[index] == EMPTY)
+		{
+			threats[index] = 0;
+			tiles[tileCount++] = index;
+		}
+	}
+
+	void addThreat(int x, int y, int threat)
+	{
+		final int index = index(x, y);
+
+		if (index == -1)
+		{
+			return;
+		}
+
+		if (threats[index] == EMPTY)
+		{
+			threats[index] = 0;
+			tiles[tileCount++] = index;
+		}
+
+		threats[index] |= threat;
+	}
+
+	void setId(int x, int y, int id)
+	{
+		final int index = index(x, y);
+
+		if (index == -1)
+		{
+			return;
+		}
+
+		if (threats[index] == EMPTY)
+		{
+			tiles[tileCount++] = index;
+		}
+
+		threats[index] = (byte) ID_TO_THREAT[id];
+	}
+
+	/**
+	 * @return the threat bitmask of the tile, or -1 if the tile was not checked
+	 */
+	int getThreat(int x, int y)
+	{
+		final int index = index(x, y);
+		return index == -1 ? -1 : threats[index];
+	}
+
+	/**
+	 * @return the safespot id of the tile, or -1 if the tile was not checked
+	 */
+	int getId(int x, int y)
+	{
+		final int threat = getThreat(x, y);
+		return threat == -1 ? -1 : THREAT_TO_ID[threat];
+	}
+
+	int size()
+	{
+		return tileCount;
+	}
+
+	int getX(int i)
+	{
+		return baseX + tiles[i] / SIZE;
+	}
+
+	int getY(int i)
+	{
+		return baseY + tiles[i] % SIZE;
+	}
+
+	int getId(int i)
+	{
+		return THREAT_TO_ID[threats[tiles[i]]];
+	}
+
+	int getPlane()
+	{
+		return plane;
+	}
+
+	int getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * @return the game tick the grid was calculated for, or -1 if it never was
+	 */
+	int getTick()
+	{
+		return tick;
+	}
+
+	/**
+	 * Orders the tile list by safespot id so every id forms a contiguous range,
+	 * see {@link #areaStart(int)} and {@link #areaEnd(int)}, and finds the outline of every area.
+	 */
+	void buildAreas()
+	{
+		Arrays.fill(areaStart, 0);
+		version++;
+
+		for (int i = 0; i < tileCount; i++)
+		{
+			areaStart[getId(i) + 1]++;
+		}
+
+		for (int id = 1; id < areaStart.length; id++)
+		{
+			areaStart[id] += areaStart[id - 1];
+		}
+
+		// In-place counting sort: walk each bucket and swap misplaced tiles into their own bucket
+		System.arraycopy(areaStart, 0, areaNext, 0, areaNext.length);
+
+		for (int id = 0; id <= MAX_ID; id++)
+		{
+			while (areaNext[id] < areaStart[id + 1])
+			{
+				final int tileId = getId(areaNext[id]);
+
+				if (tileId == id)
+				{
+					areaNext[id]++;
+					continue;
+				}
+
+				final int swap = tiles[areaNext[tileId]];
+				tiles[areaNext[tileId]++] = tiles[areaNext[id]];
+				tiles[areaNext[id]] = swap;
+			}
+		}
+
+		// An edge is on the outline when the tile on the other side isn't part of the same area
+		for (int i = 0; i < tileCount; i++)
+		{
+			final int index = tiles[i];
+			final int sceneX = index / SIZE;
+			final int sceneY = index % SIZE;
+			final byte threat = threats[index];
+			int outline = 0;
+
+			if (sceneY == 0 || threats[index - 1] != threat)
+			{
+				outline |= OUTLINE_SOUTH;
+			}
+			if (sceneX == SIZE - 1 || threats[index + SIZE] != threat)
+			{
+				outline |= OUTLINE_EAST;
+			}
+			if (sceneY == SIZE - 1 || threats[index + 1] != threat)
+			{
+				outline |= OUTLINE_NORTH;
+			}
+			if (sceneX == 0 || threats[index - SIZE] != threat)
+			{
+				outline |= OUTLINE_WEST;
+			}
+
+			outlines[index] = (byte) outline;
+		}
+	}
+
+	int areaStart(int id)
+	{
+		return areaStart[id];
+	}
+
+	int areaEnd(int id)
+	{
+		return areaStart[id + 1];
+	}
+
+	/**
+	 * @return the outline edges of the i-th tile, only valid after {@link #buildAreas()}
+	 */
+	int getOutline(int i)
+	{
+		return outlines[tiles[i]];
+	}
+
+	private int index(int x, int y)
+	{
+		final int sceneX = x - baseX;
+		final int sceneY = y - baseY;
+
+		if (sceneX < 0 || sceneY < 0 || sceneX >= SIZE || sceneY >= SIZE)
+		{
+			return -1;
+		}
+
+		return sceneX * SIZE + sceneY;
+	}
+}
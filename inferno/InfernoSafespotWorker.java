@@ -0,0 +1,192 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the safespot calculation of tick snapshots on a dedicated thread.
+ *
+ * Only the newest snapshot waits for the thread: one submitted while another is still waiting replaces it,
+ * so a calculation that takes longer than a tick skips the ticks it fell behind on instead of queueing them.
+ *
+ * Finished grids are only swapped in by {@link #getGrid()} on the client thread, so the overlays
+ * never read a grid that is still being written. Grids that are no longer shown are reused, and so
+ * are snapshots once they are calculated or replaced.
+ */
+@Slf4j
+class InfernoSafespotWorker
+{
+	private final InfernoSafespotCalculator calculator = new InfernoSafespotCalculator();
+	private final Queue<InfernoSafespotGrid> freeGrids = new ConcurrentLinkedQueue<>();
+	private final Queue<InfernoTickSnapshot> freeSnapshots = new ConcurrentLinkedQueue<>();
+	private final AtomicReference<Result> finished = new AtomicReference<>();
+	// Newest request that the thread hasn't taken yet
+	private final AtomicReference<Request> pending = new AtomicReference<>();
+	private ExecutorService executor;
+
+	// Only accessed from the client thread
+	private InfernoSafespotGrid grid = new InfernoSafespotGrid();
+	private long requested;
+	// Results of requests up to this one are dropped
+	private long superseded;
+
+	@RequiredArgsConstructor
+	private static class Request
+	{
+		private final long sequence;
+		private final InfernoTickSnapshot snapshot;
+	}
+
+	@RequiredArgsConstructor
+	private static class Result
+	{
+		private final long sequence;
+		private final InfernoSafespotGrid grid;
+	}
+
+	void start()
+	{
+		executor = Executors.newSingleThreadExecutor(runnable ->
+		{
+			final Thread thread = new Thread(runnable, "inferno-safespots");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	void stop()
+	{
+		if (executor != null)
+		{
+			executor.shutdownNow();
+			executor = null;
+		}
+
+		releasePending();
+
+		superseded = requested;
+	}
+
+	/**
+	 * Takes a snapshot to fill on the client thread, which has to be handed back with {@link #submit(InfernoTickSnapshot)}.
+	 */
+	InfernoTickSnapshot acquireSnapshot()
+	{
+		final InfernoTickSnapshot free = freeSnapshots.poll();
+		return free != null ? free : new InfernoTickSnapshot();
+	}
+
+	/**
+	 * Requests the calculation of a snapshot, replacing the result of any earlier request once it is done,
+	 * and the earlier request itself if the thread hasn't started on it yet.
+	 */
+	void submit(InfernoTickSnapshot snapshot)
+	{
+		final Request previous = pending.getAndSet(new Request(++requested, snapshot));
+
+		if (previous == null)
+		{
+			// Nothing was waiting, so no task is scheduled that would take this request
+			executor.execute(this::calculatePending);
+		}
+		else
+		{
+			freeSnapshots.add(previous.snapshot);
+		}
+	}
+
+	private void calculatePending()
+	{
+		final Request request = pending.getAndSet(null);
+
+		if (request == null)
+		{
+			// Taken by an earlier task, or dropped by acquireGrid
+			return;
+		}
+
+		final InfernoSafespotGrid next = takeFreeGrid();
+
+		try
+		{
+			calculator.calculate(request.snapshot, next);
+		}
+		catch (RuntimeException e)
+		{
+			log.warn("Unable to calculate inferno safespots", e);
+			freeGrids.add(next);
+			return;
+		}
+		finally
+		{
+			freeSnapshots.add(request.snapshot);
+		}
+
+		final Result unclaimed = finished.getAndSet(new Result(request.sequence, next));
+
+		if (unclaimed != null)
+		{
+			freeGrids.add(unclaimed.grid);
+		}
+	}
+
+	/**
+	 * Takes a grid to calculate on the client thread, which supersedes every queued request.
+	 * It has to be handed back with {@link #publish(InfernoSafespotGrid)}.
+	 */
+	InfernoSafespotGrid acquireGrid()
+	{
+		superseded = requested;
+		releasePending();
+		return takeFreeGrid();
+	}
+
+	void publish(InfernoSafespotGrid next)
+	{
+		freeGrids.add(grid);
+		grid = next;
+	}
+
+	/**
+	 * @return the latest finished grid, must be called from the client thread
+	 */
+	InfernoSafespotGrid getGrid()
+	{
+		final Result result = finished.getAndSet(null);
+
+		if (result != null)
+		{
+			if (result.sequence > superseded)
+			{
+				publish(result.grid);
+			}
+			else
+			{
+				freeGrids.add(result.grid);
+			}
+		}
+
+		return grid;
+	}
+
+	private void releasePending()
+	{
+		final Request request = pending.getAndSet(null);
+
+		if (request != null)
+		{
+			freeSnapshots.add(request.snapshot);
+		}
+	}
+
+	private InfernoSafespotGrid takeFreeGrid()
+	{
+		final InfernoSafespotGrid free = freeGrids.poll();
+		return free != null ? free : new InfernoSafespotGrid();
+	}
+}
@@ -0,0 +1,65 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Arrays;
+import net.runelite.api.coords.WorldArea;
+
+/**
+ * Inputs of a tick stage, compared against the inputs of the previous tick so the stage
+ * can keep its last result when none of them changed.
+ */
+class InfernoStageInputs
+{
+	private int[] current = new int[64];
+	private int[] previous = new int[64];
+	private int currentLength;
+	private int previousLength = -1;
+
+	void begin()
+	{
+		currentLength = 0;
+	}
+
+	void add(int value)
+	{
+		if (currentLength == current.length)
+		{
+			current = Arrays.copyOf(current, current.length * 2);
+		}
+
+		current[currentLength++] = value;
+	}
+
+	void add(WorldArea area)
+	{
+		add(area.getX());
+		add(area.getY());
+		add(area.getWidth());
+		add(area.getPlane());
+	}
+
+	/**
+	 * Stores the inputs added since {@link #begin()} as the inputs of the previous tick.
+	 *
+	 * @return true if they differ from the previous inputs
+	 */
+	boolean commit()
+	{
+		final boolean changed = currentLength != previousLength
+				|| !Arrays.equals(current, 0, currentLength, previous, 0, currentLength);
+
+		final int[] swap = previous;
+		previous = current;
+		current = swap.length >= previous.length ? swap : new int[previous.length];
+		previousLength = currentLength;
+
+		return changed;
+	}
+
+	/**
+	 * Forces the next {@link #commit()} to report a change.
+	 */
+	void invalidate()
+	{
+		previousLength = -1;
+	}
+}
@@ -0,0 +1,129 @@
+package net.runelite.client.plugins.inferno;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ring buffers of the most recent durations of every tick stage and overlay render.
+ *
+ * Recording only writes into preallocated arrays; sorting for percentiles is left to the
+ * debug overlay and the CSV export.
+ */
+class InfernoStageTimings
+{
+	private static final int CAPACITY = 512;
+
+	@Getter(AccessLevel.PACKAGE)
+	@RequiredArgsConstructor
+	enum Stage
+	{
+		COLLISION_MAP("Collision map"),
+		UPCOMING_ATTACKS("Upcoming attacks"),
+		PRAYER_PRIORITY("Prayer priority"),
+		CLOSEST_ATTACK("Closest attack"),
+		MOVEMENT_THREATS("Movement threats"),
+		PRAYING("Praying"),
+		SAFESPOTS("Safespots"),
+		OBSTACLES("Obstacles"),
+		CENTRAL_NIBBLER("Central nibbler"),
+		SPAWN_TIMER("Spawn timer"),
+		BLOB_DEATHS("Blob deaths"),
+		RENDER_PLAN("Render plan"),
+		GAME_TICK("Game tick total"),
+		INFERNO_OVERLAY("Inferno overlay"),
+		ATTACK_TIMER_OVERLAY("Attack timer overlay");
+
+		private final String name;
+	}
+
+	private static final Stage[] STAGES = Stage.values();
+
+	private final long[][] samples = new long[STAGES.length][CAPACITY];
+	private final int[] counts = new int[STAGES.length];
+	private final int[] next = new int[STAGES.length];
+	private final long[] sorted = new long[CAPACITY];
+
+	/**
+	 * Records the time passed since start for the stage.
+	 *
+	 * @return the current time, to be used as start of the next stage
+	 */
+	long record(Stage stage, long start)
+	{
+		final long now = System.nanoTime();
+		final int ordinal = stage.ordinal();
+
+		samples[ordinal][next[ordinal]] = now - start;
+		next[ordinal] = (next[ordinal] + 1) % CAPACITY;
+
+		if (counts[ordinal] < CAPACITY)
+		{
+			counts[ordinal]++;
+		}
+
+		return now;
+	}
+
+	int getCount(Stage stage)
+	{
+		return counts[stage.ordinal()];
+	}
+
+	/**
+	 * @param percentile the percentile between 0 and 100
+	 * @return the duration in nanoseconds, or 0 if nothing was recorded
+	 */
+	long getPercentile(Stage stage, int percentile)
+	{
+		final int count = sort(stage);
+
+		if (count == 0)
+		{
+			return 0;
+		}
+
+		final int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))];
+	}
+
+	void reset()
+	{
+		Arrays.fill(counts, 0);
+		Arrays.fill(next, 0);
+	}
+
+	/**
+	 * Writes the p50, p90, p99 and max of every stage in microseconds.
+	 */
+	void writeCsv(Writer writer) throws IOException
+	{
+		writer.write("stage,samples,p50_us,p90_us,p99_us,max_us\n");
+
+		for (Stage stage : STAGES)
+		{
+			writer.write(stage.getName() + "," + getCount(stage) + ","
+					+ micros(getPercentile(stage, 50)) + ","
+					+ micros(getPercentile(stage, 90)) + ","
+					+ micros(getPercentile(stage, 99)) + ","
+					+ micros(getPercentile(stage, 100)) + "\n");
+		}
+	}
+
+	private int sort(Stage stage)
+	{
+		final int ordinal = stage.ordinal();
+		System.arraycopy(samples[ordinal], 0, sorted, 0, counts[ordinal]);
+		Arrays.sort(sorted, 0, counts[ordinal]);
+		return counts[ordinal];
+	}
+
+	private static String micros(long nanos)
+	{
+		return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+	}
+}
@@ -0,0 +1,125 @@
+package net.runelite.client.plugins.inferno;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Pre-rendered tick numbers drawn above the NPC's, so the overlays blit an image instead of laying out
+ * and rasterizing the text on every frame.
+ *
+ * Sprites are rendered on first use for every tick and color, with the font and text antialiasing of
+ * the graphics they are drawn on, and are dropped when the font changes or after {@link #invalidate()}.
+ * Only used on the client thread, apart from {@link #invalidate()}.
+ */
+@Singleton
+class InfernoTickAtlas
+{
+	static final int MAX_TICK = 12;
+
+	private final InfernoRenderResources renderResources;
+
+	// Colors the sprites are rendered in, with the sprites of every tick in the same order
+	private final List<Color> colors = new ArrayList<>();
+	private final List<BufferedImage[]> sprites = new ArrayList<>();
+
+	private int fontStyle = -1;
+	private int fontSize = -1;
+	private Object antialiasing;
+	private int ascent;
+	private volatile boolean stale;
+
+	@Inject
+	InfernoTickAtlas(InfernoRenderResources renderResources)
+	{
+		this.renderResources = renderResources;
+	}
+
+	/**
+	 * @return the sprite of the tick number, or null if the tick isn't in the atlas
+	 */
+	BufferedImage getSprite(Graphics2D graphics, int tick, Color color, int fontStyle, int fontSize)
+	{
+		if (tick < 0 || tick > MAX_TICK)
+		{
+			return null;
+		}
+
+		final Object antialiasing = graphics.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+
+		if (stale || fontStyle != this.fontStyle || fontSize != this.fontSize || antialiasing != this.antialiasing)
+		{
+			stale = false;
+			colors.clear();
+			sprites.clear();
+			this.fontStyle = fontStyle;
+			this.fontSize = fontSize;
+			this.antialiasing = antialiasing;
+		}
+
+		int colorIndex = colors.indexOf(color);
+
+		if (colorIndex == -1)
+		{
+			colorIndex = colors.size();
+			colors.add(color);
+			sprites.add(new BufferedImage[MAX_TICK + 1]);
+		}
+
+		final BufferedImage[] colorSprites = sprites.get(colorIndex);
+
+		if (colorSprites[tick] == null)
+		{
+			colorSprites[tick] = render(graphics, String.valueOf(tick), color);
+		}
+
+		return colorSprites[tick];
+	}
+
+	/**
+	 * @return the distance from the top of the sprites to the text baseline
+	 */
+	int getAscent()
+	{
+		return ascent;
+	}
+
+	/**
+	 * Drops every sprite before the next lookup, such as after a config change.
+	 */
+	void invalidate()
+	{
+		stale = true;
+	}
+
+	private BufferedImage render(Graphics2D graphics, String text, Color color)
+	{
+		final Font font = renderResources.getFont(fontStyle, fontSize);
+		final FontMetrics metrics = graphics.getFontMetrics(font);
+		ascent = metrics.getAscent();
+
+		final BufferedImage sprite = graphics.getDeviceConfiguration().createCompatibleImage(
+				Math.max(1, metrics.stringWidth(text)), Math.max(1, metrics.getAscent() + metrics.getDescent()),
+				Transparency.TRANSLUCENT);
+
+		final Graphics2D spriteGraphics = sprite.createGraphics();
+		if (antialiasing != null)
+		{
+			spriteGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, antialiasing);
+		}
+		spriteGraphics.setFont(font);
+		spriteGraphics.setColor(color);
+		spriteGraphics.drawString(text, 0, metrics.getAscent());
+		spriteGraphics.dispose();
+
+		return sprite;
+	}
+}
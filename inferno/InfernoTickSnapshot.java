@@ -0,0 +1,120 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import lombok.AccessLevel;
+import lombok.Getter;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.inferno.displaymodes.InfernoSafespotDisplayMode;
+
+/**
+ * Copy of everything the safespot calculation reads during a tick.
+ *
+ * Snapshots are filled on the client thread and not changed once they are submitted, until the
+ * {@link InfernoSafespotWorker} hands them out again. They are pooled with their buffers, so taking
+ * a snapshot copies into arrays that are already allocated.
+ */
+@Getter(AccessLevel.PACKAGE)
+class InfernoTickSnapshot
+{
+	private int baseX;
+	private int baseY;
+	private int plane;
+	// Shared with the collision map, which replaces its flags instead of changing them
+	private int[][] collisionFlags;
+	private final InfernoObstacleIndex obstacles = new InfernoObstacleIndex();
+
+	// Game tick the snapshot was taken on
+	private int tick;
+
+	private int playerX;
+	private int playerY;
+	private int checkSize;
+	private InfernoSafespotDisplayMode displayMode;
+	// Tiles times NPC's from which the calculation is split across threads, or -1 to never split it
+	private int parallelThreshold;
+
+	// NPC's that count towards safespots, in the order of the NPC list
+	private int npcCount;
+	private InfernoNPC.Type[] npcTypes = new InfernoNPC.Type[16];
+	private int[] npcX = new int[16];
+	private int[] npcY = new int[16];
+	private int[] npcSize = new int[16];
+
+	/**
+	 * @param tick the game tick the snapshot is taken on
+	 * @param checkSize the distance from the player to check in every direction
+	 * @param parallelThreshold the tiles times NPC's from which the calculation is split across threads, or -1
+	 * @param safespotNpcs the NPC's to include, in the order of the NPC list
+	 */
+	void fill(int tick, WorldPoint playerLocation, int checkSize, InfernoSafespotDisplayMode displayMode,
+			  int parallelThreshold, InfernoCollisionMap collisionMap, InfernoObstacleIndex obstacles,
+			  List<InfernoNPC> infernoNpcs, Predicate<InfernoNPC> safespotNpcs)
+	{
+		fill(tick, collisionMap.getBaseX(), collisionMap.getBaseY(), collisionMap.getPlane(), collisionMap.getFlags(),
+				playerLocation.getX(), playerLocation.getY(), checkSize, displayMode, parallelThreshold);
+		obstacles.copyTo(this.obstacles);
+
+		for (InfernoNPC infernoNPC : infernoNpcs)
+		{
+			if (!safespotNpcs.test(infernoNPC))
+			{
+				continue;
+			}
+
+			final WorldArea area = infernoNPC.getNpc().getWorldArea();
+			addNpc(infernoNPC.getType(), area.getX(), area.getY(), area.getWidth());
+		}
+	}
+
+	/**
+	 * Fills the snapshot without NPC's or obstacles, such as for a tick that isn't taken from the client.
+	 * NPC's and obstacles are added with {@link #addNpc} and {@link #addObstacle}.
+	 */
+	void fill(int tick, int baseX, int baseY, int plane, int[][] collisionFlags, int playerX, int playerY,
+			  int checkSize, InfernoSafespotDisplayMode displayMode, int parallelThreshold)
+	{
+		this.baseX = baseX;
+		this.baseY = baseY;
+		this.plane = plane;
+		this.collisionFlags = collisionFlags;
+		this.obstacles.reset(baseX, baseY);
+		this.tick = tick;
+		this.playerX = playerX;
+		this.playerY = playerY;
+		this.checkSize = checkSize;
+		this.displayMode = displayMode;
+		this.parallelThreshold = parallelThreshold;
+		this.npcCount = 0;
+	}
+
+	/**
+	 * Adds an NPC that counts towards safespots, after the NPC's added before it.
+	 */
+	void addNpc(InfernoNPC.Type type, int x, int y, int size)
+	{
+		if (npcCount == npcTypes.length)
+		{
+			npcTypes = Arrays.copyOf(npcTypes, npcCount * 2);
+			npcX = Arrays.copyOf(npcX, npcCount * 2);
+			npcY = Arrays.copyOf(npcY, npcCount * 2);
+			npcSize = Arrays.copyOf(npcSize, npcCount * 2);
+		}
+
+		npcTypes[npcCount] = type;
+		npcX[npcCount] = x;
+		npcY[npcCount] = y;
+		npcSize[npcCount] = size;
+		npcCount++;
+	}
+
+	/**
+	 * Marks the area of an NPC that blocks movement, whether it counts towards safespots or not.
+	 */
+	void addObstacle(int x, int y, int size)
+	{
+		obstacles.addArea(x, y, size);
+	}
+}
@@ -0,0 +1,148 @@
+package net.runelite.client.plugins.inferno;
+
+import java.awt.Polygon;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.Perspective;
+import net.runelite.api.WorldView;
+import net.runelite.api.coords.LocalPoint;
+
+/**
+ * Canvas polygons of scene tiles, shared by the overlays.
+ *
+ * Every tile is projected at most once per camera state (position, orientation, zoom, viewport and scene),
+ * so the projections carry over between frames while the camera doesn't move. The camera is only compared
+ * once per frame, in {@link #nextFrame()}, so lookups only compare stamps. The returned polygons
+ * are shared and must not be modified.
+ */
+@Singleton
+class InfernoTileProjection
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+
+	// Indexes of the scene base in the camera state
+	private static final int BASE_X = 10;
+	private static final int BASE_Y = 11;
+
+	private final Client client;
+
+	private final Polygon[] tilePolygons = new Polygon[SIZE * SIZE];
+	private final int[] tileStamps = new int[SIZE * SIZE];
+	private final Polygon[] areaPolygons = new Polygon[SIZE * SIZE];
+	private final int[] areaSizes = new int[SIZE * SIZE];
+	private final int[] areaStamps = new int[SIZE * SIZE];
+	private int stamp = 1;
+
+	// Camera state the cached polygons were projected with
+	private final int[] camera = new int[14];
+	private final int[] currentCamera = new int[14];
+
+	@Inject
+	InfernoTileProjection(Client client)
+	{
+		this.client = client;
+	}
+
+	/**
+	 * Drops every cached polygon if the camera changed since the last frame, to be called before a frame is rendered.
+	 */
+	void nextFrame()
+	{
+		validate(client.getTopLevelWorldView());
+	}
+
+	/**
+	 * @return a stamp that changes whenever the cached polygons are dropped
+	 */
+	int getStamp()
+	{
+		return stamp;
+	}
+
+	/**
+	 * @return the canvas polygon of the world tile, or null if it isn't in the scene or on screen
+	 */
+	Polygon getCanvasTilePoly(int x, int y)
+	{
+		final int index = sceneIndex(x - camera[BASE_X], y - camera[BASE_Y]);
+
+		if (index == -1)
+		{
+			return null;
+		}
+
+		if (tileStamps[index] != stamp)
+		{
+			final LocalPoint localPoint = LocalPoint.fromWorld(client.getTopLevelWorldView(), x, y);
+			tilePolygons[index] = localPoint == null ? null : Perspective.getCanvasTilePoly(client, localPoint);
+			tileStamps[index] = stamp;
+		}
+
+		return tilePolygons[index];
+	}
+
+	/**
+	 * Same as {@link Perspective#getCanvasTileAreaPoly(Client, LocalPoint, int)}.
+	 */
+	Polygon getCanvasTileAreaPoly(LocalPoint localPoint, int size)
+	{
+		final int index = sceneIndex(localPoint.getSceneX(), localPoint.getSceneY());
+
+		if (index == -1)
+		{
+			return Perspective.getCanvasTileAreaPoly(client, localPoint, size);
+		}
+
+		if (areaStamps[index] != stamp || areaSizes[index] != size)
+		{
+			areaPolygons[index] = Perspective.getCanvasTileAreaPoly(client, localPoint, size);
+			areaSizes[index] = size;
+			areaStamps[index] = stamp;
+		}
+
+		return areaPolygons[index];
+	}
+
+	private static int sceneIndex(int sceneX, int sceneY)
+	{
+		if (sceneX < 0 || sceneY < 0 || sceneX >= SIZE || sceneY >= SIZE)
+		{
+			return -1;
+		}
+
+		return sceneX * SIZE + sceneY;
+	}
+
+	/**
+	 * Drops every cached polygon when the camera state differs from the one they were projected with.
+	 */
+	private void validate(WorldView worldView)
+	{
+		currentCamera[0] = client.getCameraX();
+		currentCamera[1] = client.getCameraY();
+		currentCamera[2] = client.getCameraZ();
+		currentCamera[3] = client.getCameraPitch();
+		currentCamera[4] = client.getCameraYaw();
+		currentCamera[5] = client.getScale();
+		currentCamera[6] = client.getViewportWidth();
+		currentCamera[7] = client.getViewportHeight();
+		currentCamera[8] = client.getViewportXOffset();
+		currentCamera[9] = client.getViewportYOffset();
+		currentCamera[BASE_X] = worldView.getBaseX();
+		currentCamera[BASE_Y] = worldView.getBaseY();
+		currentCamera[12] = worldView.getPlane();
+		currentCamera[13] = System.identityHashCode(worldView.getScene());
+
+		for (int i = 0; i < camera.length; i++)
+		{
+			if (camera[i] != currentCamera[i])
+			{
+				System.arraycopy(currentCamera, 0, camera, 0, camera.length);
+				stamp++;
+				return;
+			}
+		}
+	}
+}
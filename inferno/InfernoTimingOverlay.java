@@ -0,0 +1,87 @@
+package net.runelite.client.plugins.inferno;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayPriority;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.PanelComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+import net.runelite.client.util.Text;
+
+@Singleton
+public class InfernoTimingOverlay extends Overlay
+{
+	private final InfernoPlugin plugin;
+	private final PanelComponent panelComponent;
+
+	@Inject
+	InfernoTimingOverlay(final InfernoPlugin plugin)
+	{
+		this.plugin = plugin;
+		this.panelComponent = new PanelComponent();
+		setPosition(OverlayPosition.TOP_RIGHT);
+		setPriority(OverlayPriority.HIGH);
+		panelComponent.setPreferredSize(new Dimension(200, 0));
+	}
+
+	public Dimension render(final Graphics2D graphics)
+	{
+		final InfernoStageTimings timings = plugin.getStageTimings();
+
+		panelComponent.getChildren().clear();
+
+		panelComponent.getChildren().add(TitleComponent.builder()
+				.text("Stage timings (p50 / p99 us)")
+				.color(Color.ORANGE)
+				.build());
+
+		for (InfernoStageTimings.Stage stage : InfernoStageTimings.Stage.values())
+		{
+			if (timings.getCount(stage) == 0)
+			{
+				continue;
+			}
+
+			final long p99 = timings.getPercentile(stage, 99);
+
+			panelComponent.getChildren().add(LineComponent.builder()
+					.left(stage.getName())
+					.leftColor(Color.WHITE)
+					.right(timings.getPercentile(stage, 50) / 1000 + " / " + p99 / 1000)
+					.rightColor(p99 >= 1_000_000 ? Color.RED : Color.WHITE)
+					.build());
+		}
+
+		final InfernoPredictionTracker predictions = plugin.getPredictionTracker();
+
+		panelComponent.getChildren().add(TitleComponent.builder()
+				.text("Attack predictions (hit / early / late)")
+				.color(Color.ORANGE)
+				.build());
+
+		for (InfernoNPC.Type type : InfernoNPC.Type.values())
+		{
+			if (predictions.getTotal(type) == 0)
+			{
+				continue;
+			}
+
+			final int hits = predictions.getCount(type, InfernoPredictionTracker.Outcome.HIT);
+
+			panelComponent.getChildren().add(LineComponent.builder()
+					.left(Text.titleCase(type))
+					.leftColor(Color.WHITE)
+					.right(hits + " / " + predictions.getCount(type, InfernoPredictionTracker.Outcome.EARLY)
+							+ " / " + predictions.getCount(type, InfernoPredictionTracker.Outcome.LATE))
+					.rightColor(hits < predictions.getTotal(type) ? Color.YELLOW : Color.WHITE)
+					.build());
+		}
+
+		return panelComponent.render(graphics);
+	}
+}
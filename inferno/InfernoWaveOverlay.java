@@ -84,14 +84,7 @@ public class InfernoWaveOverlay extends Overlay
 	private void addNibblerCounter()
 	{
 		// Count living nibblers
-		int nibblerCount = 0;
-		for (InfernoNPC infernoNPC : plugin.getInfernoNpcs())
-		{
-			if (infernoNPC.getType() == InfernoNPC.Type.NIBBLER)
-			{
-				nibblerCount++;
-			}
-		}
+		final int nibblerCount = plugin.getNpcRegistry().getAll(InfernoNPC.Type.NIBBLER).size();
 
 		// Only show if there are nibblers
 		if (nibblerCount == 0)
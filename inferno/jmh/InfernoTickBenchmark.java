@@ -0,0 +1,346 @@
+package net.runelite.client.plugins.inferno;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.Constants;
+import net.runelite.api.NPC;
+import net.runelite.api.Prayer;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.inferno.displaymodes.InfernoSafespotDisplayMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the tick stages that run without a client, on synthetic scenes of representative waves.
+ *
+ * A scene is the arena with its three pillars, the player in the middle and the NPC's of the wave placed
+ * around it at random, with a fixed seed per wave. NPC's are stand-ins of {@link InfernoReplayClient} that
+ * keep playing their attack animation, so they attack whenever their timer runs out. Wave 69 has Zuk with
+ * the ranger, mage and Jad he spawns.
+ *
+ * The movement threats, central nibbler and overlays read the plugin's config and the client, and aren't
+ * benchmarked here. The stage timing overlay reports their in-game cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InfernoTickBenchmark
+{
+	private static final int BASE_X = 2240;
+	private static final int BASE_Y = 5312;
+	private static final int PLANE = 0;
+
+	// Walkable area of the arena and the south-west tiles of its 3x3 pillars, in scene coordinates
+	private static final int ARENA_MIN_X = 17;
+	private static final int ARENA_MIN_Y = 15;
+	private static final int ARENA_MAX_X = 45;
+	private static final int ARENA_MAX_Y = 45;
+	private static final int[][] PILLARS = {{18, 36}, {40, 33}, {28, 20}};
+
+	private static final int PLAYER_X = BASE_X + 31;
+	private static final int PLAYER_Y = BASE_Y + 30;
+
+	// Default settings of the plugin
+	private static final int SIMULTANEOUS_ATTACK_THRESHOLD = 1;
+	private static final Predicate<InfernoNPC> COUNTED_NPCS = infernoNPC ->
+	{
+		switch (infernoNPC.getType())
+		{
+			case NIBBLER:
+			case ZUK:
+			case HEALER_ZUK:
+				return false;
+			default:
+				return true;
+		}
+	};
+
+	@State(Scope.Thread)
+	public static class Scene
+	{
+		@Param({"1", "30", "60", "66", "69"})
+		public int wave;
+
+		private final InfernoReplayClient replayClient = new InfernoReplayClient();
+		private final InfernoCollisionMap collisionMap = new InfernoCollisionMap();
+		private final InfernoObstacleIndex obstacles = new InfernoObstacleIndex();
+		private final InfernoNpcRegistry npcRegistry = new InfernoNpcRegistry();
+		private final AttackTimeline upcomingAttacks = new AttackTimeline();
+		private final InfernoTickSnapshot snapshot = new InfernoTickSnapshot();
+		private final WorldPoint player = new WorldPoint(PLAYER_X, PLAYER_Y, PLANE);
+		private int[][] flags;
+		// Scene tiles taken by the NPC's placed so far
+		private final boolean[][] taken = new boolean[Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			flags = arenaFlags();
+			replayClient.setTick(0, PLAYER_X, PLAYER_Y, PLANE, 0, BASE_X, BASE_Y, flags);
+			collisionMap.refresh(replayClient.getWorldView());
+
+			final int[] monsters = wave == 69 ? new int[]{1400, 370, 490, 900} : InfernoWaveMappings.getWaveMapping().get(wave);
+			final Random random = new Random(wave);
+
+			for (int i = 0; i < monsters.length; i++)
+			{
+				spawn(i, typeFromLevel(monsters[i]), random);
+			}
+
+			obstacles.update(replayClient.getNpcs(), BASE_X, BASE_Y);
+
+			// Spread the attack timers over a few cycles, like a wave that has been going for a while
+			for (int tick = 0; tick < 20; tick++)
+			{
+				tick();
+			}
+		}
+
+		private void spawn(int index, InfernoNPC.Type type, Random random)
+		{
+			final int size = sizeOf(type);
+
+			while (true)
+			{
+				final int x = ARENA_MIN_X + random.nextInt(ARENA_MAX_X - ARENA_MIN_X - size + 2);
+				final int y = ARENA_MIN_Y + random.nextInt(ARENA_MAX_Y - ARENA_MIN_Y - size + 2);
+
+				if (!isFree(x, y, size))
+				{
+					continue;
+				}
+
+				final NPC npc = replayClient.update(index, type.getNpcIds()[0], BASE_X + x, BASE_Y + y, size,
+						attackAnimationOf(type), false);
+				npcRegistry.add(new InfernoNPC(npc, collisionMap, NPC::getAnimation));
+
+				for (int dx = 0; dx < size; dx++)
+				{
+					for (int dy = 0; dy < size; dy++)
+					{
+						taken[x + dx][y + dy] = true;
+					}
+				}
+				return;
+			}
+		}
+
+		private boolean isFree(int x, int y, int size)
+		{
+			if (Math.max(InfernoNPC.axisDistance(x, size, PLAYER_X - BASE_X), InfernoNPC.axisDistance(y, size, PLAYER_Y - BASE_Y)) < 2)
+			{
+				return false;
+			}
+
+			for (int dx = 0; dx < size; dx++)
+			{
+				for (int dy = 0; dy < size; dy++)
+				{
+					if (flags[x + dx][y + dy] != 0 || taken[x + dx][y + dy])
+					{
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Same as the plugin's upcoming attacks stage.
+		 */
+		private void tick()
+		{
+			upcomingAttacks.clear();
+
+			for (InfernoNPC infernoNPC : npcRegistry.getAll())
+			{
+				infernoNPC.gameTick(replayClient.getClient(), player, false, 0);
+
+				if (COUNTED_NPCS.test(infernoNPC))
+				{
+					upcomingAttacks.add(infernoNPC, false);
+				}
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Safespots
+	{
+		@Param({"5", "10", "15", "20", "25"})
+		public int safespotsCheckSize;
+
+		private final InfernoSafespotCalculator calculator = new InfernoSafespotCalculator();
+		private final InfernoSafespotGrid grid = new InfernoSafespotGrid();
+		private final InfernoTickSnapshot serial = new InfernoTickSnapshot();
+		private final InfernoTickSnapshot parallel = new InfernoTickSnapshot();
+
+		@Setup(Level.Trial)
+		public void setUp(Scene scene)
+		{
+			final int checkSize = (int) Math.floor(safespotsCheckSize / 2.0);
+
+			serial.fill(0, scene.player, checkSize, InfernoSafespotDisplayMode.AREA, -1, scene.collisionMap,
+					scene.obstacles, scene.npcRegistry.getAll(), COUNTED_NPCS);
+			parallel.fill(0, scene.player, checkSize, InfernoSafespotDisplayMode.AREA, 0, scene.collisionMap,
+					scene.obstacles, scene.npcRegistry.getAll(), COUNTED_NPCS);
+		}
+	}
+
+	@Benchmark
+	public int upcomingAttacks(Scene scene)
+	{
+		scene.tick();
+		return scene.upcomingAttacks.getMaxTick();
+	}
+
+	@Benchmark
+	public Prayer prayerPriority(Scene scene)
+	{
+		final AttackGroupsSnapshot attackGroups = AttackGroupsSnapshot.build(scene.npcRegistry.getAll(), COUNTED_NPCS,
+				SIMULTANEOUS_ATTACK_THRESHOLD);
+		scene.upcomingAttacks.getClosestAttack();
+		return attackGroups.getNextTickPrayer(scene.upcomingAttacks, true);
+	}
+
+	@Benchmark
+	public int safespotSnapshot(Scene scene)
+	{
+		// Half the default check size, the copy doesn't depend on it
+		scene.snapshot.fill(0, scene.player, 3, InfernoSafespotDisplayMode.AREA, -1, scene.collisionMap, scene.obstacles,
+				scene.npcRegistry.getAll(), COUNTED_NPCS);
+		return scene.snapshot.getNpcCount();
+	}
+
+	@Benchmark
+	public int safespots(Safespots safespots)
+	{
+		safespots.calculator.calculate(safespots.serial, safespots.grid);
+		return safespots.grid.size();
+	}
+
+	@Benchmark
+	public int safespotsParallel(Safespots safespots)
+	{
+		safespots.calculator.calculate(safespots.parallel, safespots.grid);
+		return safespots.grid.size();
+	}
+
+	/**
+	 * @return scene collision flags with everything outside the arena and the pillars blocked
+	 */
+	private static int[][] arenaFlags()
+	{
+		final int blocked = CollisionDataFlag.BLOCK_MOVEMENT_FULL | CollisionDataFlag.BLOCK_LINE_OF_SIGHT_FULL;
+		final int[][] flags = new int[Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+
+		for (int x = 0; x < Constants.SCENE_SIZE; x++)
+		{
+			for (int y = 0; y < Constants.SCENE_SIZE; y++)
+			{
+				if (x < ARENA_MIN_X || x > ARENA_MAX_X || y < ARENA_MIN_Y || y > ARENA_MAX_Y)
+				{
+					flags[x][y] = blocked;
+				}
+			}
+		}
+
+		for (int[] pillar : PILLARS)
+		{
+			for (int dx = 0; dx < 3; dx++)
+			{
+				for (int dy = 0; dy < 3; dy++)
+				{
+					flags[pillar[0] + dx][pillar[1] + dy] = blocked;
+				}
+			}
+		}
+
+		return flags;
+	}
+
+	/**
+	 * @param level the combat level of the wave mappings
+	 */
+	private static InfernoNPC.Type typeFromLevel(int level)
+	{
+		switch (level)
+		{
+			case 32:
+				return InfernoNPC.Type.NIBBLER;
+			case 85:
+				return InfernoNPC.Type.BAT;
+			case 165:
+				return InfernoNPC.Type.BLOB;
+			case 240:
+				return InfernoNPC.Type.MELEE;
+			case 370:
+				return InfernoNPC.Type.RANGER;
+			case 490:
+				return InfernoNPC.Type.MAGE;
+			case 900:
+				return InfernoNPC.Type.JAD;
+			default:
+				return InfernoNPC.Type.ZUK;
+		}
+	}
+
+	private static int sizeOf(InfernoNPC.Type type)
+	{
+		switch (type)
+		{
+			case NIBBLER:
+				return 1;
+			case BAT:
+				return 2;
+			case BLOB:
+			case RANGER:
+				return 3;
+			case MELEE:
+			case MAGE:
+				return 4;
+			case JAD:
+				return 5;
+			default:
+				return 7;
+		}
+	}
+
+	private static int attackAnimationOf(InfernoNPC.Type type)
+	{
+		switch (type)
+		{
+			case NIBBLER:
+				return InfernoPlugin.JAL_NIB;
+			case BAT:
+				return InfernoPlugin.JAL_MEJRAH;
+			case BLOB:
+				return InfernoPlugin.JAL_AK_RANGE_ATTACK;
+			case MELEE:
+				return InfernoPlugin.JAL_IMKOT;
+			case RANGER:
+				return InfernoPlugin.JAL_XIL_RANGE_ATTACK;
+			case MAGE:
+				return InfernoPlugin.JAL_ZEK_MAGE_ATTACK;
+			case JAD:
+				return InfernoPlugin.JALTOK_JAD_MAGE_ATTACK;
+			default:
+				return InfernoPlugin.TZKAL_ZUK;
+		}
+	}
+}